@@ -0,0 +1,55 @@
+package mazesolver.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One step of fire spread on a PackedMaze. The trial setup lets a fire started from one cell
+// spread for SPREAD_STEPS steps first, so each measured step works on a fire with a real
+// burning region and boundary rather than a single cell. fireSpreads returns a new maze, so
+// every invocation spreads the same fire one step, with its own random draws.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FireBenchmark {
+	private static final int SPREAD_STEPS = 50;
+
+	@Param({"100", "1000", "10000"})
+	int dim;
+
+	@Param({"0.2", "0.3"})
+	double p;
+
+	@Param({"0.1", "0.5"})
+	double q;
+
+	Object maze;
+	Object rng;
+
+	@Setup(Level.Trial)
+	public void ignite() throws Throwable {
+		rng = (Object) Solver.NEW_RANDOM.invokeExact(42L);
+		maze = (Object) Solver.GENERATE.invokeExact(dim, p, true, rng);
+		for (int step = 0; step < SPREAD_STEPS; step++) {
+			maze = (Object) Solver.FIRE_SPREADS.invokeExact(maze, q, rng);
+		}
+	}
+
+	@Benchmark
+	public Object spread() throws Throwable {
+		return (Object) Solver.FIRE_SPREADS.invokeExact(maze, q, rng);
+	}
+}
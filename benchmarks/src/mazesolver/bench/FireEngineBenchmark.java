@@ -0,0 +1,75 @@
+package mazesolver.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One step of a FireEngine. Like FireBenchmark, the fire first spreads for SPREAD_STEPS steps
+// from one cell. Engines keep their fire between steps, so a single engine stepped for a whole
+// iteration would soon burn out (with seed 42, the smallest mazes stop igniting about 160 steps
+// after the setup) and the engines would then be timed on an empty fire. Instead every
+// invocation starts a fresh engine on that fire, outside the measurement, and times WINDOW
+// steps of it, all on a live fire.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FireEngineBenchmark {
+	private static final int SPREAD_STEPS = 50;
+	private static final int WINDOW = 100; //steps timed per engine, fewer than any fire here lasts
+
+	@Param({"100", "1000", "10000"})
+	int dim;
+
+	@Param({"0.2", "0.3"})
+	double p;
+
+	@Param({"0.1", "0.5"})
+	double q;
+
+	@Param({"SCAN", "FRONTIER", "BITBOARD"})
+	String engine;
+
+	Object ignited;
+	Object kind;
+	Object fire;
+	Object rng;
+
+	@Setup(Level.Trial)
+	public void ignite() throws Throwable {
+		rng = (Object) Solver.NEW_RANDOM.invokeExact(42L);
+		ignited = (Object) Solver.GENERATE.invokeExact(dim, p, true, rng);
+		for (int step = 0; step < SPREAD_STEPS; step++) {
+			ignited = (Object) Solver.FIRE_SPREADS.invokeExact(ignited, q, rng);
+		}
+		kind = (Object) Solver.FIRE_ENGINE_KIND.invokeExact(engine);
+	}
+
+	@Setup(Level.Invocation)
+	public void start() throws Throwable {
+		fire = (Object) Solver.START_FIRE.invokeExact(kind, ignited, q);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WINDOW)
+	public int step() throws Throwable {
+		int ignitions = 0;
+		for (int step = 0; step < WINDOW; step++) {
+			ignitions += (int) Solver.FIRE_STEP.invokeExact(fire, rng);
+		}
+		return ignitions;
+	}
+}
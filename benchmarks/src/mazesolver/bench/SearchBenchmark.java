@@ -0,0 +1,70 @@
+package mazesolver.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One search on a fixed solvable maze, for every combination of dimension, density and
+// algorithm. The maze is generated from a fixed seed in the trial setup, so every run and every
+// algorithm searches the same maze, and the searches reuse their thread's SearchWorkspace the
+// way the experiments do. Throughput is in searches per second and SampleTime gives the
+// latency distribution (p0.99 and others); add -prof gc for the allocation rate.
+//
+// The 10000x10000 mazes hold 10^8 cells, and the workspace arrays for them take a few GB,
+// hence the larger heap of the forks.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class SearchBenchmark {
+	public enum Algorithm {
+		BFS, DFS, BIDIRECTIONAL_BFS, ASTAR_MANHATTAN, ASTAR_EUCLIDEAN
+	}
+
+	@Param({"100", "1000", "10000"})
+	int dim;
+
+	@Param({"0.1", "0.2", "0.3"})
+	double p;
+
+	@Param
+	Algorithm algorithm;
+
+	Object maze;
+	int goal;
+
+	@Setup(Level.Trial)
+	public void generate() throws Throwable {
+		maze = Solver.solvableMaze(dim, p, 42);
+		goal = (int) Solver.GOAL.invokeExact(maze);
+	}
+
+	// Returns the SearchResult so JMH consumes it.
+	@Benchmark
+	public Object search() throws Throwable {
+		switch (algorithm) {
+		case BFS:
+			return (Object) Solver.SEARCH_BFS.invokeExact(maze);
+		case DFS:
+			return (Object) Solver.SEARCH_DFS.invokeExact(maze);
+		case BIDIRECTIONAL_BFS:
+			return (Object) Solver.SEARCH_BIDIRECTIONAL_BFS.invokeExact(maze);
+		case ASTAR_MANHATTAN:
+			return (Object) Solver.SEARCH_ASTAR.invokeExact(maze, 0, goal, false);
+		default:
+			return (Object) Solver.SEARCH_ASTAR.invokeExact(maze, 0, goal, true);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package mazesolver.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// The maze solver is written in the default package, which a named package (and JMH needs one
+// for its generated code) cannot import. Solver looks the solver's classes up once by name and
+// exposes the methods the benchmarks call as static final MethodHandles, with the solver's
+// types erased to Object. The JIT treats a static final handle as a constant and inlines
+// through it, so the benchmarks measure the searches and not the indirection.
+final class Solver {
+	// (long seed) -> MazeRandom
+	static final MethodHandle NEW_RANDOM;
+	// (int dim, double p, boolean onFire, MazeRandom rng) -> PackedMaze
+	static final MethodHandle GENERATE;
+	// (PackedMaze) -> SearchResult
+	static final MethodHandle SEARCH_BFS;
+	static final MethodHandle SEARCH_DFS;
+	static final MethodHandle SEARCH_BIDIRECTIONAL_BFS;
+	// (PackedMaze, int start, int goal, boolean usesEuclidean) -> SearchResult
+	static final MethodHandle SEARCH_ASTAR;
+	// (PackedMaze, double q, MazeRandom rng) -> PackedMaze
+	static final MethodHandle FIRE_SPREADS;
+	// (String kind) -> FireEngine.Kind
+	static final MethodHandle FIRE_ENGINE_KIND;
+	// (FireEngine.Kind, PackedMaze, double q) -> FireEngine
+	static final MethodHandle START_FIRE;
+	// (FireEngine, MazeRandom rng) -> int
+	static final MethodHandle FIRE_STEP;
+	// (SearchResult) -> boolean
+	static final MethodHandle IS_SOLVED;
+	// (PackedMaze) -> int
+	static final MethodHandle GOAL;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> random = Class.forName("MazeRandom");
+			Class<?> maze = Class.forName("PackedMaze");
+			Class<?> result = Class.forName("SearchResult");
+			Class<?> search = Class.forName("StaticGenAndSearch");
+			Class<?> engine = Class.forName("FireEngine");
+			Class<?> kind = Class.forName("FireEngine$Kind");
+
+			NEW_RANDOM = erase(lookup.findConstructor(random, MethodType.methodType(void.class, long.class)));
+			GENERATE = erase(lookup.findStatic(maze, "generate", MethodType.methodType(maze, int.class, double.class, boolean.class, random)));
+			SEARCH_BFS = erase(lookup.findStatic(search, "searchBFS", MethodType.methodType(result, maze)));
+			SEARCH_DFS = erase(lookup.findStatic(search, "searchDFS", MethodType.methodType(result, maze)));
+			SEARCH_BIDIRECTIONAL_BFS = erase(lookup.findStatic(search, "searchBidirectionalBFS", MethodType.methodType(result, maze)));
+			SEARCH_ASTAR = erase(lookup.findStatic(search, "searchAStar", MethodType.methodType(result, maze, int.class, int.class, boolean.class)));
+			FIRE_SPREADS = erase(lookup.findStatic(search, "fireSpreads", MethodType.methodType(maze, maze, double.class, random)));
+			FIRE_ENGINE_KIND = erase(lookup.findStatic(kind, "valueOf", MethodType.methodType(kind, String.class)));
+			START_FIRE = erase(lookup.findVirtual(kind, "start", MethodType.methodType(engine, maze, double.class)));
+			FIRE_STEP = erase(lookup.findVirtual(engine, "step", MethodType.methodType(int.class, random)));
+			IS_SOLVED = erase(lookup.findVirtual(result, "isSolved", MethodType.methodType(boolean.class)));
+			GOAL = erase(lookup.findVirtual(maze, "goal", MethodType.methodType(int.class)));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private Solver() {
+	}
+
+	// Generates a solvable dim x dim maze of density p. Seeds seed, seed+1, ... are tried in
+	// turn so the same parameters always give the same maze.
+	static Object solvableMaze(int dim, double p, long seed) throws Throwable {
+		for (int attempt = 0; attempt < 100; attempt++) {
+			Object rng = (Object) NEW_RANDOM.invokeExact(seed + attempt);
+			Object maze = (Object) GENERATE.invokeExact(dim, p, false, rng);
+			if ((boolean) IS_SOLVED.invokeExact((Object) SEARCH_BFS.invokeExact(maze))) {
+				return maze;
+			}
+		}
+		throw new IllegalStateException("no solvable " + dim + "x" + dim + " maze at p = " + p + " in 100 attempts");
+	}
+
+	// Replaces every class of the solver in a handle's type with Object, so it can be called
+	// with invokeExact from code that cannot name those classes.
+	private static MethodHandle erase(MethodHandle handle) {
+		return handle.asType(handle.type().erase());
+	}
+}
@@ -0,0 +1,139 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// AsyncRecordSink writes TrialRecords as CSV lines on a thread of its own, so the threads
+// running the trials never wait on the Writer. accept only offers the record to a bounded
+// queue; if the writer has fallen so far behind that the queue is full, the record is dropped
+// and counted rather than blocking the trial, and dropped() says how many were lost. The
+// writer thread takes records off the queue in batches of up to BATCH_SIZE and flushes once
+// per batch, so a busy experiment costs one flush per batch rather than one per line.
+//
+// close waits for every record accepted before it to be written, then closes the Writer. An
+// IOException of the writer thread stops the writing and is thrown by close. Every record
+// accepted is either written or counted in dropped(), including those still queued when the
+// writing failed.
+public final class AsyncRecordSink implements Closeable {
+	private static final int BATCH_SIZE = 1024;
+	private static final TrialRecord END = new TrialRecord("", 0, 0, 0, 0, false, 0, 0, 0, 0); //queued by close, never written
+
+	private final BlockingQueue<TrialRecord> queue;
+	private final Writer out;
+	private final Thread writer;
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicInteger accepting = new AtomicInteger(); //accept calls under way, which close waits out
+	private volatile long written;
+	private volatile IOException failure;
+	private volatile boolean closed;
+
+	// A sink writing to out, holding at most capacity records that are not written yet.
+	public AsyncRecordSink(Writer out, int capacity) throws IOException {
+		this.queue = new ArrayBlockingQueue<TrialRecord>(capacity);
+		this.out = out;
+		out.write(TrialRecord.CSV_HEADER);
+		out.write('\n');
+		this.writer = new Thread(this::drain, "trial-records");
+		writer.setDaemon(true); //an experiment that forgets to close the sink can still exit
+		writer.start();
+	}
+
+	// Queues record to be written, or drops it if the queue is full or the sink is closed.
+	public void accept(TrialRecord record) {
+		accepting.incrementAndGet();
+		try {
+			if (closed || failure != null || !queue.offer(record)) {
+				dropped.incrementAndGet();
+			}
+		} finally {
+			accepting.decrementAndGet();
+		}
+	}
+
+	// Number of records dropped so far.
+	public long dropped() {
+		return dropped.get();
+	}
+
+	// Number of records written so far.
+	public long written() {
+		return written;
+	}
+
+	private void drain() {
+		List<TrialRecord> batch = new ArrayList<TrialRecord>(BATCH_SIZE);
+		int done = 0; //records of the batch written, or END and what came before it
+		try {
+			while (true) {
+				batch.add(queue.take());
+				queue.drainTo(batch, BATCH_SIZE - 1);
+				for (done = 0; done < batch.size(); done++) {
+					TrialRecord record = batch.get(done);
+					if (record == END) {
+						done++;
+						out.flush();
+						return;
+					}
+					out.write(record.toCsv());
+					out.write('\n');
+					written++; //only this thread writes it
+				}
+				out.flush();
+				batch.clear();
+				done = 0;
+			}
+		} catch (IOException e) {
+			failure = e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			discard(batch.subList(done, batch.size()));
+			List<TrialRecord> left = new ArrayList<TrialRecord>();
+			queue.drainTo(left); //also lets a close waiting to queue END through
+			discard(left);
+		}
+	}
+
+	// Counts records that will never be written as dropped.
+	private void discard(List<TrialRecord> records) {
+		for (TrialRecord record : records) {
+			if (record != END) {
+				dropped.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		while (accepting.get() > 0) {
+			Thread.onSpinWait(); //an accept that has not seen closed yet; it never blocks
+		}
+		try {
+			while (writer.isAlive() && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+				//the writer is still making room
+			}
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while writing the last records", e);
+		} finally {
+			out.close();
+		}
+		List<TrialRecord> left = new ArrayList<TrialRecord>();
+		queue.drainTo(left); //queued after the writer had stopped
+		discard(left);
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
@@ -0,0 +1,312 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.jfree.data.xy.XYDataset;
+
+// BatchRunner runs one experiment of StaticGenAndSearch without opening any windows and
+// writes its dataset to a CSV or JSON file, so the experiments can run on machines without a
+// display. The plots can be drawn later from the files. Progress printing is off unless
+// --verbose is given, and every run uses a seed (printed on stderr) so it can be repeated.
+//
+// Usage: java BatchRunner <experiment> [--out file] [--format csv|json] [--seed n] [--dim n]
+//                         [--metric fringe|nodes] [--threads n] [--max-steps n]
+//                         [--image file.png] [--maze file] [--from-maze file] [--corpus dir]
+//                         [--records file.csv] [--field-samples n] [--animate dir] [--verbose]
+// --dim applies to solvability, search-solvability, hardest-maze and hardest-restarts; the
+// other experiments use the dimensions of their plots. --max-steps limits every climb of
+// hardest-restarts, so restarts that cannot beat the best so far give up early. --image
+// writes the hardest maze of hardest-maze or hardest-restarts, with its A*-Manhattan path,
+// to a PNG file, and --maze saves it as a MazeFile, which a later hardest-maze run can load
+// with --from-maze instead of searching for a maze, to score, draw or add it to a corpus
+// again. --corpus adds the hardest maze, and for hardest-restarts the maze every restart
+// ended on, to a MazeCorpus directory. --records writes a CSV line per trial of
+// shortest-path, astar-nodes, nodes-expanded and fire-solvability through an
+// AsyncRecordSink; records the sink cannot keep up with are dropped, and how many is printed
+// at the end. --field-samples adds Strategy 4 to fire-solvability, simulating the fire that
+// many times every few steps of a trial. --animate runs every strategy run of fire-solvability
+// that did not escape again once the dataset is written, and writes it to the directory as an
+// animated GIF, one per run, named by q, strategy and the seed of the trial.
+public final class BatchRunner {
+	static final List<String> EXPERIMENTS = Arrays.asList("solvability", "search-solvability", "shortest-path",
+			"astar-nodes", "nodes-expanded", "dim-solvability", "hardest-maze", "hardest-restarts", "fire-solvability");
+	private static final String USAGE = "usage: java BatchRunner <experiment> [--out file] [--format csv|json] [--seed n] [--dim n] [--metric fringe|nodes] [--threads n] [--max-steps n] [--image file.png] [--maze file] [--from-maze file] [--corpus dir] [--records file.csv] [--field-samples n] [--animate dir] [--verbose]\n"
+			+ "experiments:\n"
+			+ "  solvability         fraction of solvable mazes against density (percolation estimate)\n"
+			+ "  search-solvability  the same, by searching 1000 mazes per density with every algorithm\n"
+			+ "  shortest-path       average shortest path length against density\n"
+			+ "  astar-nodes         average nodes expanded by A*-Euclidean and A*-Manhattan\n"
+			+ "  nodes-expanded      average nodes expanded by every algorithm\n"
+			+ "  dim-solvability     solvability against density for dimensions 40 to 140\n"
+			+ "  hardest-maze        the hardest maze found by findHardestPLevel, or read with --from-maze (--metric, default fringe)\n"
+			+ "  hardest-restarts    statistics of each restart of hardest-maze, run on --threads threads\n"
+			+ "  fire-solvability    success rate of the fire strategies against flammability q (Strategy 4 with --field-samples)";
+
+	private static final int RECORD_QUEUE = 1 << 16; //trial records waiting to be written
+
+	private BatchRunner() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		if (args.length == 0 || args[0].equals("--help")) {
+			System.err.println(USAGE);
+			System.exit(args.length == 0 ? 2 : 0);
+		}
+		String experiment = args[0];
+		if (!EXPERIMENTS.contains(experiment)) {
+			fail("unknown experiment " + experiment);
+		}
+		String out = null;
+		String format = null;
+		long seed = new MazeRandom().seed();
+		int dim = 100;
+		boolean usesDFS = true;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int maxSteps = Integer.MAX_VALUE;
+		String image = null;
+		String mazeFile = null;
+		String fromMaze = null;
+		String corpus = null;
+		String records = null;
+		int fieldSamples = 0;
+		String animate = null;
+		boolean verbose = false;
+		for (int i = 1; i < args.length; i++) {
+			switch (args[i]) {
+			case "--out":
+				out = value(args, ++i);
+				break;
+			case "--format":
+				format = value(args, ++i);
+				if (!format.equalsIgnoreCase("csv") && !format.equalsIgnoreCase("json")) {
+					fail("unknown format " + format + " (csv or json)");
+				}
+				break;
+			case "--seed":
+				seed = Long.parseLong(value(args, ++i));
+				break;
+			case "--dim":
+				dim = Integer.parseInt(value(args, ++i));
+				break;
+			case "--metric":
+				String metric = value(args, ++i);
+				if (!metric.equals("fringe") && !metric.equals("nodes")) {
+					fail("unknown metric " + metric + " (fringe or nodes)");
+				}
+				usesDFS = metric.equals("fringe");
+				break;
+			case "--threads":
+				threads = Integer.parseInt(value(args, ++i));
+				break;
+			case "--max-steps":
+				maxSteps = Integer.parseInt(value(args, ++i));
+				break;
+			case "--image":
+				image = value(args, ++i);
+				break;
+			case "--maze":
+				mazeFile = value(args, ++i);
+				break;
+			case "--from-maze":
+				fromMaze = value(args, ++i);
+				break;
+			case "--corpus":
+				corpus = value(args, ++i);
+				break;
+			case "--records":
+				records = value(args, ++i);
+				break;
+			case "--field-samples":
+				fieldSamples = Integer.parseInt(value(args, ++i));
+				break;
+			case "--animate":
+				animate = value(args, ++i);
+				break;
+			case "--verbose":
+				verbose = true;
+				break;
+			default:
+				fail("unknown option " + args[i]);
+			}
+		}
+		DatasetWriter.Format outFormat;
+		if (format != null) {
+			outFormat = format.equalsIgnoreCase("json") ? DatasetWriter.Format.JSON : DatasetWriter.Format.CSV;
+		} else {
+			outFormat = out == null ? DatasetWriter.Format.CSV : DatasetWriter.Format.forFile(out);
+		}
+		if (out == null) {
+			out = experiment + "." + outFormat.name().toLowerCase();
+		}
+
+		StaticGenAndSearch.headless = true;
+		StaticGenAndSearch.verbose = verbose;
+		System.err.println(experiment + ": seed " + seed + ", writing " + out);
+		if (animate != null && experiment.equals("fire-solvability")) {
+			StaticGenAndSearch.fireFailures = new ConcurrentLinkedQueue<FireStrategyEvaluator.Failure>();
+		}
+		if (records != null) {
+			StaticGenAndSearch.records = new AsyncRecordSink(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(records), StandardCharsets.UTF_8)), RECORD_QUEUE);
+		}
+		long startTime = System.nanoTime();
+		boolean finished = false;
+		try {
+			try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8))) {
+				if (experiment.equals("hardest-maze")) {
+					PathNode[][] hardest = fromMaze != null ? loadMaze(fromMaze, usesDFS) : StaticGenAndSearch.findHardestPLevel(dim, usesDFS, new MazeRandom(seed));
+					DatasetWriter.writeMaze(hardest, StaticGenAndSearch.cellsTraversed, StaticGenAndSearch.maxFringeSize, outFormat, writer);
+					if (image != null) {
+						writeImage(PackedMaze.fromMap(hardest), image);
+					}
+					if (mazeFile != null) {
+						MazeFile.write(Paths.get(mazeFile), PackedMaze.fromMap(hardest), Double.NaN, seed); //the density of the winning restart is not kept
+					}
+					if (corpus != null) {
+						try (MazeCorpus mazes = MazeCorpus.open(Paths.get(corpus))) {
+							mazes.add(PackedMaze.fromMap(hardest), Double.NaN, seed);
+						}
+					}
+				} else if (experiment.equals("hardest-restarts")) {
+					HardestMazeRestarts.Result result = StaticGenAndSearch.hardestMazeRestarts(dim, usesDFS, seed, threads, maxSteps);
+					DatasetWriter.writeRestarts(result, outFormat, writer);
+					if (image != null && result.hardest != null) {
+						writeImage(result.hardest.materialize(), image);
+					}
+					if (mazeFile != null && result.hardest != null) {
+						for (HardestMazeRestarts.Restart restart : result.restarts) {
+							if (restart.maze == result.hardest) {
+								MazeFile.write(Paths.get(mazeFile), result.hardest.materialize(), restart.density, MazeRandom.forStream(seed, restart.index).seed());
+							}
+						}
+					}
+					if (corpus != null) {
+						try (MazeCorpus mazes = MazeCorpus.open(Paths.get(corpus))) {
+							for (HardestMazeRestarts.Restart restart : result.restarts) {
+								mazes.add(restart.maze.materialize(), restart.density, MazeRandom.forStream(seed, restart.index).seed());
+							}
+							System.err.println(corpus + ": " + mazes.size() + " mazes");
+						}
+					}
+				} else {
+					DatasetWriter.write(dataset(experiment, dim, seed, fieldSamples), outFormat, writer);
+				}
+			}
+			if (StaticGenAndSearch.fireFailures != null) {
+				writeAnimations(Paths.get(animate), fieldSamples);
+			}
+			finished = true;
+		} finally {
+			if (records != null) {
+				closeRecords(records, finished);
+			}
+		}
+		System.err.println(experiment + ": done in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+	}
+
+	// Runs the named experiment and returns its dataset.
+	static XYDataset dataset(String experiment, int dim, long seed, int fieldSamples) throws Exception {
+		switch (experiment) {
+		case "solvability":
+			return StaticGenAndSearch.percolationSolvability(dim, seed);
+		case "search-solvability":
+			return StaticGenAndSearch.mazeSolvability(dim, seed);
+		case "shortest-path":
+			return StaticGenAndSearch.shortestPath(seed);
+		case "astar-nodes":
+			return StaticGenAndSearch.avgAStarNodes(seed);
+		case "nodes-expanded":
+			return StaticGenAndSearch.avgNodesExpanded(seed);
+		case "dim-solvability":
+			return StaticGenAndSearch.dimSolvability(seed);
+		case "fire-solvability":
+			return StaticGenAndSearch.fireMazeSolvability(seed, fieldSamples);
+		default:
+			throw new IllegalArgumentException("unknown experiment " + experiment);
+		}
+	}
+
+	// Closes the sink of --records, which writes the records still queued, even when the
+	// experiment failed. A failure to write them is only thrown if the experiment finished,
+	// so it cannot hide the experiment's own exception.
+	private static void closeRecords(String file, boolean finished) throws IOException {
+		AsyncRecordSink sink = StaticGenAndSearch.records;
+		StaticGenAndSearch.records = null;
+		try {
+			sink.close();
+		} catch (IOException e) {
+			if (finished) {
+				throw e;
+			}
+			System.err.println(file + ": " + e.getMessage());
+		}
+		System.err.println(file + ": " + sink.written() + " records written, " + sink.dropped() + " dropped");
+	}
+
+	// Reads a maze saved with --maze and sets the statistics findHardestPLevel would have left
+	// for it.
+	static PathNode[][] loadMaze(String file, boolean usesDFS) throws IOException {
+		PackedMaze maze = MazeFile.open(Paths.get(file)).toPackedMaze();
+		int hardness = HardMazeSearch.hardness(maze, usesDFS);
+		StaticGenAndSearch.cellsTraversed = usesDFS ? 0 : hardness;
+		StaticGenAndSearch.maxFringeSize = usesDFS ? hardness : 0;
+		System.err.println("read " + file + ", hardness " + hardness);
+		return maze.toMap();
+	}
+
+	// Replays the fire-solvability runs in StaticGenAndSearch.fireFailures, in order of q, trial
+	// and strategy, and writes each to dir as an animated GIF of a frame per step, a pixel per
+	// cell: a sweep can fail thousands of times, and larger frames run to gigabytes.
+	static void writeAnimations(Path dir, int fieldSamples) throws Exception {
+		List<FireStrategyEvaluator.Failure> failures = new ArrayList<FireStrategyEvaluator.Failure>(StaticGenAndSearch.fireFailures);
+		StaticGenAndSearch.fireFailures = null;
+		failures.sort(Comparator.comparingDouble((FireStrategyEvaluator.Failure failure) -> failure.q)
+				.thenComparingLong(failure -> failure.seed).thenComparingInt(failure -> failure.strategy));
+		FireStrategyEvaluator evaluator = StaticGenAndSearch.fireEvaluator(fieldSamples);
+		Files.createDirectories(dir);
+		for (FireStrategyEvaluator.Failure failure : failures) {
+			Path file = dir.resolve(String.format("q%.2f-strategy%d-%s.gif", failure.q, failure.strategy + 1, Long.toHexString(failure.seed)));
+			boolean escaped;
+			try (FireAnimationWriter animation = new FireAnimationWriter(new BufferedOutputStream(Files.newOutputStream(file)), evaluator.dim(), 1, 100)) {
+				escaped = evaluator.replay(failure, StepObserver.recording(animation));
+			}
+			if (escaped) {
+				System.err.println(file + ": the replay escaped");
+			}
+		}
+		System.err.println("wrote " + failures.size() + " animations to " + dir);
+	}
+
+	// Writes maze and its A*-Manhattan path as a PNG of at least about 500 pixels a side.
+	static void writeImage(PackedMaze maze, String file) throws IOException {
+		PathNode[][] map = maze.toMap();
+		PathNode goal = StaticGenAndSearch.searchAStar(map, false).goal();
+		int[] path = goal == null ? null : MazeImageWriter.pathCells(map.length, goal, null);
+		MazeImageWriter.writePng(maze, path, -1, Math.max(1, 500 / maze.dim), Paths.get(file));
+		System.err.println("wrote " + file);
+	}
+
+	private static String value(String[] args, int i) {
+		if (i >= args.length) {
+			fail(args[i-1] + " needs a value");
+		}
+		return args[i];
+	}
+
+	private static void fail(String message) {
+		System.err.println(message);
+		System.err.println(USAGE);
+		System.exit(2);
+	}
+}
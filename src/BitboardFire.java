@@ -0,0 +1,211 @@
+import java.util.stream.IntStream;
+
+// BitboardFire spreads the fire 64 cells at a time on the packed bits of a maze. The fire
+// bits of the north, south, east and west neighbors of every cell in a word are the fire words
+// shifted by dim, dim, 1 and 1 bits, so the four neighbor masks of a word take a few shifts
+// and ors, and the number of burning neighbors of each of its 64 cells is added up bit-sliced
+// (as three bit planes of the count) with ands and xors. Only the cells that are open and
+// have a burning neighbor draw a random number, compared as a 53-bit integer against a table
+// of 1-(1-q)^k, which is the same test as nextDouble() <= 1-(1-q)^k without the conversion.
+//
+// A step reads the obstacle and fire words once and writes the new fire words once, so it
+// runs at memory speed on large mazes whatever the size of the fire. Large mazes are split
+// into blocks of words that are stepped in parallel. Each block draws from its own stream
+// (see MazeRandom.forStream) of a seed drawn from the caller's random, so a fire run gives the
+// same fire whatever the number of threads. A maze of one block draws from the caller's random
+// directly, for the same cells in the same order as fireSpreads, so it gives exactly the fire
+// ScanFire gives for the same random.
+//
+// The Vector API would widen the word operations further, but it is still an incubator
+// module on Java 17; the shifts on longs are what the JIT already vectorizes best here.
+final class BitboardFire implements FireEngine {
+	// Words per parallel block; smaller mazes step on the calling thread.
+	private static final int BLOCK_WORDS = 1 << 14;
+
+	private final int dim;
+	private final int cells;
+	private final long[] blocked; //shared with the maze the engine started from, never written
+	private final long[] firstColumn; //bit is set for the cells of column 0
+	private final long[] threshold; //a draw x >>> 11 ignites a cell with k burning neighbors if it is <= threshold[k]
+	private final PathNode[][] mirror; //null if there is no PathNode map to update
+	private final double q;
+	private FireRiskMap risk; //built the first time it is asked for
+	private long[] onFire;
+	private long[] onFireNext;
+	private int burning;
+	private int ignitedCount; //fires of the last step, which are the bits set in onFire but not onFireNext
+
+	BitboardFire(PackedMaze maze, double q, PathNode[][] mirror) {
+		this.dim = maze.dim;
+		this.cells = maze.cellCount();
+		this.blocked = maze.blocked;
+		this.onFire = maze.onFire.clone();
+		this.onFireNext = new long[onFire.length];
+		this.firstColumn = new long[onFire.length];
+		for (int cell = 0; cell < cells; cell += dim) {
+			firstColumn[cell >>> 6] |= 1L << cell;
+		}
+		this.threshold = new long[5];
+		threshold[0] = -1; //no burning neighbor, never ignites
+		for (int k = 1; k <= 4; k++) {
+			threshold[k] = (long) Math.floor((1-(Math.pow(1-q, k))) * 0x1.0p53);
+		}
+		this.mirror = mirror;
+		this.q = q;
+		for (long word : onFire) {
+			burning += Long.bitCount(word);
+		}
+	}
+
+	@Override
+	public int step(MazeRandom rng) {
+		int words = onFire.length;
+		int ignited;
+		if (words <= BLOCK_WORDS) {
+			ignited = stepWords(0, words, rng);
+		} else {
+			long seed = rng.nextLong();
+			int blocks = (words + BLOCK_WORDS - 1) / BLOCK_WORDS;
+			ignited = IntStream.range(0, blocks).parallel()
+					.map(block -> stepWords(block * BLOCK_WORDS, Math.min(words, (block + 1) * BLOCK_WORDS), MazeRandom.forStream(seed, block)))
+					.sum();
+		}
+		if (mirror != null && ignited > 0) {
+			for (int w = 0; w < words; w++) {
+				for (long newFire = onFireNext[w] & ~onFire[w]; newFire != 0; newFire &= newFire - 1) {
+					int cell = (w << 6) + Long.numberOfTrailingZeros(newFire);
+					mirror[cell / dim][cell % dim].isOnFire = true;
+				}
+			}
+		}
+		long[] swap = onFire;
+		onFire = onFireNext;
+		onFireNext = swap;
+		ignitedCount = ignited;
+		if (risk != null && ignited > 0) {
+			for (int cell : newFires()) {
+				risk.ignite(cell, null);
+			}
+		}
+		burning += ignited;
+		return ignited;
+	}
+
+	// Steps words [from, to) from onFire into onFireNext and returns the number of new fires.
+	private int stepWords(int from, int to, MazeRandom rng) {
+		long[] fire = onFire, next = onFireNext, first = firstColumn;
+		int rowWords = dim >>> 6, rowBits = dim & 63;
+		int interiorFrom = Math.min(to, Math.max(from, rowWords + 1)), interiorTo = Math.max(interiorFrom, Math.min(to, fire.length - rowWords - 1));
+		int ignited = 0;
+		for (int w = from; w < interiorFrom; w++) {
+			ignited += stepEdgeWord(w, rng);
+		}
+		// The words whose neighbors all exist, without bounds checks. With rowBits == 0 the
+		// vertical neighbors are whole words, and shifting by 64 - 0 would not shift at all.
+		int upBits = rowBits == 0 ? 0 : 64 - rowBits;
+		long upMask = rowBits == 0 ? 0 : -1L;
+		for (int w = interiorFrom; w < interiorTo; w++) {
+			long north = fire[w - rowWords] << rowBits | (fire[w - rowWords - 1] >>> upBits & upMask); //fire of cell - dim
+			long south = fire[w + rowWords] >>> rowBits | (fire[w + rowWords + 1] << upBits & upMask); //fire of cell + dim
+			long west = fire[w] << 1 | fire[w - 1] >>> 63; //fire of cell - 1
+			long east = fire[w] >>> 1 | fire[w + 1] << 63; //fire of cell + 1
+			if ((north | south | west | east) == 0) { //no fire near this word, the common case on a large maze
+				next[w] = fire[w];
+				continue;
+			}
+			west &= ~first[w]; //not across rows
+			east &= ~(first[w] >>> 1 | first[w + 1] << 63);
+			long newFire = ignite(north, south, west, east, ~blocked[w] & ~fire[w], rng);
+			ignited += Long.bitCount(newFire);
+			next[w] = fire[w] | newFire;
+		}
+		for (int w = interiorTo; w < to; w++) {
+			ignited += stepEdgeWord(w, rng);
+		}
+		return ignited;
+	}
+
+	// Steps a word near the start or end of the maze, where some neighboring words do not exist.
+	private int stepEdgeWord(int w, MazeRandom rng) {
+		long[] fire = onFire;
+		int rowWords = dim >>> 6, rowBits = dim & 63;
+		long north = shiftedUp(fire, w - rowWords, rowBits);
+		long south = shiftedDown(fire, w + rowWords, rowBits);
+		long west = (fire[w] << 1 | word(fire, w - 1) >>> 63) & ~firstColumn[w];
+		long east = (fire[w] >>> 1 | word(fire, w + 1) << 63) & ~(firstColumn[w] >>> 1 | word(firstColumn, w + 1) << 63);
+		long open = ~blocked[w] & ~fire[w];
+		if (w == fire.length - 1 && (cells & 63) != 0) {
+			open &= (1L << cells) - 1; //no cells past the last one
+		}
+		long newFire = ignite(north, south, west, east, open, rng);
+		onFireNext[w] = fire[w] | newFire;
+		return Long.bitCount(newFire);
+	}
+
+	// Draws the ignitions of the open cells of a word, given the fire masks of its four
+	// neighbors, and returns the cells that catch fire.
+	private long ignite(long north, long south, long west, long east, long open, MazeRandom rng) {
+		long candidates = (north | south | west | east) & open;
+		if (candidates == 0) {
+			return 0;
+		}
+		long ns0 = north ^ south, ns1 = north & south; //bit-sliced count of the four masks
+		long ew0 = east ^ west, ew1 = east & west;
+		long carry = ns0 & ew0;
+		long count0 = ns0 ^ ew0;
+		long count1 = ns1 ^ ew1 ^ carry;
+		long count2 = ns1 & ew1 | (ns1 ^ ew1) & carry;
+		long newFire = 0;
+		for (long c = candidates; c != 0; c &= c - 1) {
+			int bit = Long.numberOfTrailingZeros(c);
+			int k = (int) (count0 >>> bit & 1 | (count1 >>> bit & 1) << 1 | (count2 >>> bit & 1) << 2);
+			if (rng.nextLong() >>> 11 <= threshold[k]) {
+				newFire |= 1L << bit;
+			}
+		}
+		return newFire;
+	}
+
+	// Bit i of the result is bit i of the bitset shifted up by rowWords words and rowBits bits,
+	// with zeros shifted in, i.e. the bit of the cell dim cells before.
+	private static long shiftedUp(long[] bits, int w, int rowBits) {
+		return rowBits == 0 ? word(bits, w) : word(bits, w) << rowBits | word(bits, w - 1) >>> (64 - rowBits);
+	}
+
+	// The bit of the cell dim cells after.
+	private static long shiftedDown(long[] bits, int w, int rowBits) {
+		return rowBits == 0 ? word(bits, w) : word(bits, w) >>> rowBits | word(bits, w + 1) << (64 - rowBits);
+	}
+
+	private static long word(long[] bits, int w) {
+		return w >= 0 && w < bits.length ? bits[w] : 0;
+	}
+
+	@Override
+	public FireRiskMap riskMap() {
+		if (risk == null) {
+			risk = new FireRiskMap(maze(), q);
+		}
+		return risk;
+	}
+
+	@Override
+	public int[] newFires() {
+		return ignitedCount == 0 ? new int[0] : ScanFire.newBits(onFireNext, onFire);
+	}
+
+	@Override
+	public boolean isOnFire(int cell) {
+		return (onFire[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	@Override
+	public int burningCount() {
+		return burning;
+	}
+
+	@Override
+	public PackedMaze maze() {
+		return new PackedMaze(dim, blocked, onFire.clone());
+	}
+}
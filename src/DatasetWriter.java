@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.io.Writer;
+import org.jfree.data.xy.XYDataset;
+
+// DatasetWriter streams the results of the experiments to CSV or JSON, so they can be
+// produced on a machine without a display and plotted later. Datasets are written one point
+// at a time straight to the Writer, and mazes one row at a time.
+//
+// CSV datasets have one "series,x,y" line per point. JSON datasets are
+// {"series":[{"name":..., "x":[...], "y":[...]}, ...]}. Mazes are written as rows of
+// characters: '#' for an occupied cell, '.' for an empty one and '*' for one on fire.
+public final class DatasetWriter {
+	public enum Format {
+		CSV, JSON;
+
+		// The format named by a file name's extension, CSV unless it ends in .json.
+		public static Format forFile(String fileName) {
+			return fileName.toLowerCase().endsWith(".json") ? JSON : CSV;
+		}
+	}
+
+	private DatasetWriter() {
+	}
+
+	public static void write(XYDataset data, Format format, Writer out) throws IOException {
+		if (format == Format.JSON) {
+			writeJson(data, out);
+		} else {
+			writeCsv(data, out);
+		}
+	}
+
+	public static void writeCsv(XYDataset data, Writer out) throws IOException {
+		out.write("series,x,y\n");
+		for (int series = 0; series < data.getSeriesCount(); series++) {
+			String name = csvField(String.valueOf(data.getSeriesKey(series)));
+			for (int item = 0; item < data.getItemCount(series); item++) {
+				out.write(name);
+				out.write(',');
+				out.write(Double.toString(data.getXValue(series, item)));
+				out.write(',');
+				out.write(Double.toString(data.getYValue(series, item)));
+				out.write('\n');
+			}
+		}
+		out.flush();
+	}
+
+	public static void writeJson(XYDataset data, Writer out) throws IOException {
+		out.write("{\"series\":[");
+		for (int series = 0; series < data.getSeriesCount(); series++) {
+			if (series > 0) {
+				out.write(',');
+			}
+			out.write("\n {\"name\":");
+			out.write(jsonString(String.valueOf(data.getSeriesKey(series))));
+			out.write(",\"x\":[");
+			for (int item = 0; item < data.getItemCount(series); item++) {
+				if (item > 0) {
+					out.write(',');
+				}
+				out.write(jsonNumber(data.getXValue(series, item)));
+			}
+			out.write("],\"y\":[");
+			for (int item = 0; item < data.getItemCount(series); item++) {
+				if (item > 0) {
+					out.write(',');
+				}
+				out.write(jsonNumber(data.getYValue(series, item)));
+			}
+			out.write("]}");
+		}
+		out.write("\n]}\n");
+		out.flush();
+	}
+
+	// Writes a maze with the statistics of solving it (e.g. the hardest maze found and the
+	// number of nodes expanded or the fringe size that made it hard).
+	public static void writeMaze(PathNode[][] map, int nodesExpanded, int maxFringe, Format format, Writer out) throws IOException {
+		if (format == Format.JSON) {
+			out.write("{\"dim\":" + map.length + ",\"nodesExpanded\":" + nodesExpanded + ",\"maxFringe\":" + maxFringe + ",\"rows\":[");
+			for (int i = 0; i < map.length; i++) {
+				out.write(i > 0 ? ",\n \"" : "\n \"");
+				out.write(mazeRow(map[i]));
+				out.write('"');
+			}
+			out.write("\n]}\n");
+		} else {
+			out.write("# dim=" + map.length + ",nodesExpanded=" + nodesExpanded + ",maxFringe=" + maxFringe + "\n");
+			for (int i = 0; i < map.length; i++) {
+				out.write(mazeRow(map[i]));
+				out.write('\n');
+			}
+		}
+		out.flush();
+	}
+
+	// Writes the statistics of every restart of a concurrent hardest-maze search, one row per
+	// restart in index order, with the hardness of the hardest maze and the wall-clock time.
+	public static void writeRestarts(HardestMazeRestarts.Result result, Format format, Writer out) throws IOException {
+		int hardest = result.hardest == null ? 0 : result.hardest.hardness();
+		if (format == Format.JSON) {
+			out.write("{\"threads\":" + result.threads + ",\"elapsedMillis\":" + result.elapsedNanos / 1000000 + ",\"hardness\":" + hardest + ",\"restarts\":[");
+			for (int i = 0; i < result.restarts.size(); i++) {
+				HardestMazeRestarts.Restart r = result.restarts.get(i);
+				out.write(i > 0 ? ",\n " : "\n ");
+				out.write("{\"index\":" + r.index + ",\"density\":" + jsonNumber(r.density) + ",\"startHardness\":" + r.startHardness
+						+ ",\"hardness\":" + r.hardness + ",\"steps\":" + r.steps + ",\"searches\":" + r.searches
+						+ ",\"elapsedMillis\":" + r.elapsedNanos / 1000000 + ",\"abandoned\":" + r.abandoned + "}");
+			}
+			out.write("\n]}\n");
+		} else {
+			out.write("# threads=" + result.threads + ",elapsedMillis=" + result.elapsedNanos / 1000000 + ",hardness=" + hardest + "\n");
+			out.write("index,density,startHardness,hardness,steps,searches,elapsedMillis,abandoned\n");
+			for (HardestMazeRestarts.Restart r : result.restarts) {
+				out.write(r.index + "," + r.density + "," + r.startHardness + "," + r.hardness + "," + r.steps + "," + r.searches
+						+ "," + r.elapsedNanos / 1000000 + "," + r.abandoned + "\n");
+			}
+		}
+		out.flush();
+	}
+
+	private static String mazeRow(PathNode[] row) {
+		char[] cells = new char[row.length];
+		for (int j = 0; j < row.length; j++) {
+			cells[j] = !row[j].isEmpty ? '#' : row[j].isOnFire ? '*' : '.';
+		}
+		return new String(cells);
+	}
+
+	// Quotes a CSV field if it holds a comma, quote or line break.
+	static String csvField(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static String jsonString(String value) {
+		StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	// JSON has no NaN or infinity (e.g. an average over no solved mazes), so those become null.
+	private static String jsonNumber(double value) {
+		return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+	}
+}
@@ -0,0 +1,121 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+// FireAnimationWriter writes the states of a fire run as the frames of an animated GIF, with
+// the colors of MazeCanvas and scale x scale pixels per cell. Frames are written as they are
+// added, into one palette image that is reused for every frame, so a run of thousands of steps
+// holds one frame in memory. It works without a display; StepObserver.recording adds a frame
+// for every step of a fire strategy.
+public final class FireAnimationWriter implements Closeable {
+	private final ImageOutputStream out;
+	private final ImageWriter writer;
+	private final int dim;
+	private final int scale;
+	private final int delay; //hundredths of a second per frame
+	private final BufferedImage frame;
+	private final byte[] pixels;
+	private final byte[] cells;
+	private boolean first = true;
+
+	// An animation of dim x dim mazes on out, showing each frame for delayMillis milliseconds.
+	public FireAnimationWriter(OutputStream out, int dim, int scale, int delayMillis) throws IOException {
+		this.out = ImageIO.createImageOutputStream(out);
+		this.writer = ImageIO.getImageWritersByFormatName("gif").next();
+		this.dim = dim;
+		this.scale = scale;
+		this.delay = Math.max(1, delayMillis / 10);
+		this.frame = new BufferedImage(dim * scale, dim * scale, BufferedImage.TYPE_BYTE_INDEXED, MazeCanvas.colorModel());
+		this.pixels = ((DataBufferByte) frame.getRaster().getDataBuffer()).getData();
+		this.cells = new byte[dim * dim];
+		writer.setOutput(this.out);
+		writer.prepareWriteSequence(null);
+	}
+
+	// Adds a frame of maze with a path of cell ids (may be null) and the person at position
+	// (-1 for none).
+	public void addFrame(PackedMaze maze, int[] path, int position) throws IOException {
+		if (maze.dim != dim) {
+			throw new IllegalArgumentException("frame of dim " + maze.dim + " in an animation of dim " + dim);
+		}
+		MazeCanvas.classify(maze, MazeCanvas.pathBits(maze, path), position, 0, dim, cells, 0);
+		int width = dim * scale;
+		for (int row = 0; row < dim; row++) {
+			int line = row * scale * width;
+			for (int col = 0; col < dim; col++) {
+				byte color = cells[row * dim + col];
+				for (int x = col * scale; x < (col + 1) * scale; x++) {
+					pixels[line + x] = color;
+				}
+			}
+			for (int y = 1; y < scale; y++) {
+				System.arraycopy(pixels, line, pixels, line + y * width, width);
+			}
+		}
+		writer.writeToSequence(new IIOImage(frame, null, metadata()), null);
+		first = false;
+	}
+
+	// Adds a frame of map with the path that ends at goal, back to currentPosition.
+	public void addFrame(PathNode[][] map, PathNode goal, PathNode currentPosition) throws IOException {
+		addFrame(PackedMaze.fromMap(map), MazeImageWriter.pathCells(dim, goal, currentPosition), MazeImageWriter.cellOf(dim, currentPosition));
+	}
+
+	// The frame delay, and on the first frame the extension that makes the animation loop.
+	private IIOMetadata metadata() throws IOException {
+		IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(frame), null);
+		String format = metadata.getNativeMetadataFormatName();
+		IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+		IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+		control.setAttribute("disposalMethod", "none");
+		control.setAttribute("userInputFlag", "FALSE");
+		control.setAttribute("transparentColorFlag", "FALSE");
+		control.setAttribute("delayTime", Integer.toString(delay));
+		control.setAttribute("transparentColorIndex", "0");
+		root.appendChild(control);
+		IIOMetadataNode colors = new IIOMetadataNode("LocalColorTable"); //otherwise the frame is read with a default palette
+		IndexColorModel model = (IndexColorModel) frame.getColorModel();
+		colors.setAttribute("sizeOfLocalColorTable", Integer.toString(model.getMapSize()));
+		colors.setAttribute("sortFlag", "FALSE");
+		for (int i = 0; i < model.getMapSize(); i++) {
+			IIOMetadataNode entry = new IIOMetadataNode("ColorTableEntry");
+			entry.setAttribute("index", Integer.toString(i));
+			entry.setAttribute("red", Integer.toString(model.getRed(i)));
+			entry.setAttribute("green", Integer.toString(model.getGreen(i)));
+			entry.setAttribute("blue", Integer.toString(model.getBlue(i)));
+			colors.appendChild(entry);
+		}
+		root.appendChild(colors);
+		if (first) {
+			IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+			IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+			loop.setAttribute("applicationID", "NETSCAPE");
+			loop.setAttribute("authenticationCode", "2.0");
+			loop.setUserObject(new byte[] {1, 0, 0}); //loop forever
+			extensions.appendChild(loop);
+			root.appendChild(extensions);
+		}
+		metadata.setFromTree(format, root);
+		return metadata;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			writer.endWriteSequence();
+		} finally {
+			writer.dispose();
+			out.close();
+		}
+	}
+}
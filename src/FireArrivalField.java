@@ -0,0 +1,262 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// FireArrivalField is the distribution of the time the fire reaches every cell of a maze,
+// estimated from many runs of the fire from the maze's current burning cells. Where
+// FireRiskMap only says how likely a cell is to catch fire in the next step, the field answers
+// how likely it is to be burning after any number of steps, and when it is expected to catch
+// fire, so planners can look ahead without simulating the fire themselves (see FireReplanner).
+//
+// The runs are simulated in bulk up front, in parallel, each with its own FireEngine and its own
+// stream of the seed (see MazeRandom.forStream), so a field is the same whatever the number of
+// threads. A run ends when the fire has reached every cell it can reach. The runs are folded
+// into a histogram per cell as they finish, a few at a time: BINS bins of equal width covering
+// the steps 0 to horizon, kept as running counts, plus how many runs reached the cell at all and
+// the mean of their arrival times. Memory is (BINS + 1) chars and a float per cell whatever the
+// number of samples, and the probability of a cell burning by time t is a single lookup. It is
+// rounded up to the end of the bin t falls in, and to the chance of ever burning past the
+// horizon, so it never understates the risk. Cells the fire never reaches in a run, and arrivals
+// after MAX_TIME steps, count as NEVER.
+//
+// Fields are expensive, so of() keeps the last few in a cache keyed by the maze (obstacles and
+// fire), q, the number of samples and the seed. Asking again for the field of a fire state that
+// was already simulated, e.g. by a planner that reads the field again before the fire has
+// spread, then costs a hash of the maze.
+public final class FireArrivalField {
+	public static final int NEVER = Character.MAX_VALUE;
+	public static final int MAX_TIME = NEVER - 1;
+	public static final int MAX_SAMPLES = Character.MAX_VALUE; //the counts are chars
+	static final int BINS = 32;
+	private static final int STRIDE = BINS + 1; //the bins of a cell, then how many runs reached it
+	private static final int CACHE_SIZE = 4;
+
+	// Fields by the maze, q, samples and seed they were simulated from, least recently used first.
+	private static final Map<Key, FireArrivalField> cache = new LinkedHashMap<Key, FireArrivalField>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, FireArrivalField> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private final int dim;
+	private final int samples;
+	private final int horizon;
+	private final int width; //steps per bin
+	private final char[] burned; //burned[cell * STRIDE + b]: runs in which cell burned by the end of bin b
+	private final float[] mean; //mean arrival over the runs that reach the cell, NaN if none does
+
+	// The field of the fire of maze, simulated samples times with spread probability q using
+	// engine, with the default horizon of 4 * dim steps.
+	public FireArrivalField(PackedMaze maze, double q, int samples, long seed, FireEngine.Kind engine) {
+		this(maze, q, samples, seed, engine, 4 * maze.dim);
+	}
+
+	// The same, with the bins covering the steps 0 to horizon.
+	public FireArrivalField(PackedMaze maze, double q, int samples, long seed, FireEngine.Kind engine, int horizon) {
+		if (samples < 1 || samples > MAX_SAMPLES) {
+			throw new IllegalArgumentException("samples must be between 1 and " + MAX_SAMPLES + ", not " + samples);
+		}
+		if (horizon < 0 || horizon > MAX_TIME) {
+			throw new IllegalArgumentException("horizon must be between 0 and " + MAX_TIME + ", not " + horizon);
+		}
+		this.dim = maze.dim;
+		this.samples = samples;
+		this.horizon = horizon;
+		this.width = horizon / BINS + 1;
+		int cells = maze.cellCount();
+		this.burned = new char[Math.multiplyExact(cells, STRIDE)];
+		double[] sum = new double[cells];
+		int reachable = reachableCount(maze);
+		int batch = Math.min(samples, ForkJoinPool.getCommonPoolParallelism() + 1);
+		char[][] arrivals = new char[batch][cells]; //the runs of one batch, folded in once it is done
+		for (int first = 0; first < samples; first += batch) {
+			int runs = Math.min(batch, samples - first), base = first;
+			IntStream.range(0, runs).parallel().forEach(i -> simulate(maze, q, engine, reachable, MazeRandom.forStream(seed, base + i), arrivals[i]));
+			IntStream.range(0, dim).parallel().forEach(row -> {
+				for (int cell = row * dim; cell < (row + 1) * dim; cell++) {
+					for (int i = 0; i < runs; i++) {
+						int t = arrivals[i][cell];
+						if (t != NEVER) {
+							burned[cell * STRIDE + BINS]++;
+							sum[cell] += t;
+							if (t <= horizon) {
+								burned[cell * STRIDE + t / width]++;
+							}
+						}
+					}
+				}
+			});
+		}
+		this.mean = new float[cells];
+		IntStream.range(0, dim).parallel().forEach(row -> {
+			for (int cell = row * dim; cell < (row + 1) * dim; cell++) {
+				int offset = cell * STRIDE;
+				for (int b = 1; b < BINS; b++) {
+					burned[offset + b] += burned[offset + b - 1];
+				}
+				int reached = burned[offset + BINS];
+				mean[cell] = reached == 0 ? Float.NaN : (float) (sum[cell] / reached);
+			}
+		});
+	}
+
+	// The field of maze from the cache, simulated with the FRONTIER engine if it is not there.
+	public static FireArrivalField of(PackedMaze maze, double q, int samples, long seed) {
+		Key key = new Key(maze, q, samples, seed);
+		synchronized (cache) {
+			FireArrivalField field = cache.get(key);
+			if (field != null) {
+				return field;
+			}
+		}
+		FireArrivalField field = new FireArrivalField(maze, q, samples, seed, FireEngine.Kind.FRONTIER); //not under the lock, so other fields can be read meanwhile
+		synchronized (cache) {
+			cache.putIfAbsent(key, field);
+			return cache.get(key);
+		}
+	}
+
+	// Runs the fire once, writing the step every cell caught fire into arrival.
+	private static void simulate(PackedMaze maze, double q, FireEngine.Kind engine, int reachable, MazeRandom rng, char[] arrival) {
+		Arrays.fill(arrival, (char) NEVER);
+		FireEngine fire = engine.start(maze, q);
+		for (int cell = 0; cell < maze.cellCount(); cell++) {
+			if (maze.isOnFire(cell)) {
+				arrival[cell] = 0;
+			}
+		}
+		for (int t = 1; t <= MAX_TIME && fire.burningCount() < reachable; t++) {
+			if (fire.step(rng) > 0) {
+				for (int cell : fire.newFires()) {
+					arrival[cell] = (char) t;
+				}
+			}
+		}
+	}
+
+	// Number of cells the fire of maze can ever reach: the burning cells and every open cell
+	// connected to one.
+	private static int reachableCount(PackedMaze maze) {
+		int dim = maze.dim;
+		int[] queue = new int[maze.cellCount()];
+		boolean[] seen = new boolean[maze.cellCount()];
+		int head = 0, tail = 0;
+		for (int cell = 0; cell < maze.cellCount(); cell++) {
+			if (maze.isOnFire(cell)) {
+				seen[cell] = true;
+				queue[tail++] = cell;
+			}
+		}
+		while (head < tail) {
+			int cell = queue[head++];
+			int row = cell / dim, col = cell % dim;
+			if (row+1 < dim) tail = visit(maze, cell+dim, seen, queue, tail);
+			if (col+1 < dim) tail = visit(maze, cell+1, seen, queue, tail);
+			if (row-1 >= 0) tail = visit(maze, cell-dim, seen, queue, tail);
+			if (col-1 >= 0) tail = visit(maze, cell-1, seen, queue, tail);
+		}
+		return tail;
+	}
+
+	// Queues cell if it is open and not seen yet, and returns the new end of the queue.
+	private static int visit(PackedMaze maze, int cell, boolean[] seen, int[] queue, int tail) {
+		if (!seen[cell] && maze.isEmpty(cell)) {
+			seen[cell] = true;
+			queue[tail++] = cell;
+		}
+		return tail;
+	}
+
+	// The fraction of runs in which cell was burning after t steps of the fire (t = 0 is now),
+	// rounded up to the end of t's bin, or to reachProbability past the horizon.
+	public double burnProbability(int cell, int t) {
+		if (t < 0) {
+			return 0;
+		}
+		return (double) burned[cell * STRIDE + (t <= horizon ? t / width : BINS)] / samples;
+	}
+
+	public double burnProbability(int row, int col, int t) {
+		return burnProbability(row * dim + col, t);
+	}
+
+	// The fraction of runs in which the fire reached cell at all.
+	public double reachProbability(int cell) {
+		return (double) burned[cell * STRIDE + BINS] / samples;
+	}
+
+	// The mean step the fire reached cell at, over the runs in which it did, or NaN if it never
+	// did.
+	public double meanArrival(int cell) {
+		return mean[cell];
+	}
+
+	// A step by which a fraction (0 to 1) of the runs had reached cell: the last step of the
+	// first bin by which they had, horizon() + 1 if only after the horizon, or NEVER if they
+	// did not. arrivalQuantile(cell, 0.5) bounds the median.
+	public int arrivalQuantile(int cell, double fraction) {
+		int needed = Math.max(1, Math.min(samples, (int) Math.ceil(fraction * samples)));
+		int offset = cell * STRIDE;
+		if (burned[offset + BINS] < needed) {
+			return NEVER;
+		}
+		for (int b = 0; b < BINS; b++) { //BINS lookups at most
+			if (burned[offset + b] >= needed) {
+				return Math.min(horizon, (b + 1) * width - 1);
+			}
+		}
+		return horizon + 1;
+	}
+
+	public int horizon() {
+		return horizon;
+	}
+
+	public int dim() {
+		return dim;
+	}
+
+	public int samples() {
+		return samples;
+	}
+
+	// What a field is simulated from. The maze's words are copied, so a later change to the maze
+	// cannot change the key of a cached field.
+	private static final class Key {
+		final int dim;
+		final long[] blocked;
+		final long[] onFire;
+		final double q;
+		final int samples;
+		final long seed;
+		final int hash;
+
+		Key(PackedMaze maze, double q, int samples, long seed) {
+			this.dim = maze.dim;
+			this.blocked = maze.blocked.clone();
+			this.onFire = maze.onFire.clone();
+			this.q = q;
+			this.samples = samples;
+			this.seed = seed;
+			this.hash = 31 * (31 * (31 * Arrays.hashCode(blocked) + Arrays.hashCode(onFire)) + Double.hashCode(q)) + Long.hashCode(seed) + samples;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return dim == other.dim && q == other.q && samples == other.samples && seed == other.seed
+					&& Arrays.equals(blocked, other.blocked) && Arrays.equals(onFire, other.onFire);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+// FireEngine runs the fire of one fire maze, one time step at a time. Every step, each open
+// cell (empty and not burning) with k burning neighbors catches fire with probability
+// 1-(1-q)^k, independently of the other cells, and all cells that catch fire start burning
+// at once at the end of the step. Engines differ only in how they find the cells that can
+// catch fire and how they draw the ignitions, so every engine gives the same distribution of
+// fires, although not the same fire for the same random stream.
+//
+// An engine started from a PathNode[][] map keeps the map's isOnFire flags up to date, so the
+// fire strategies can keep checking PathNodes while the engine does the spreading.
+public interface FireEngine {
+	// Spreads the fire one time step and returns the number of cells that caught fire.
+	int step(MazeRandom rng);
+
+	// The cells that caught fire in the last step, in no particular order.
+	int[] newFires();
+
+	boolean isOnFire(int cell);
+
+	// The chance of every cell catching fire in the next step, kept up to date by the engine
+	// from then on.
+	FireRiskMap riskMap();
+
+	// Number of cells on fire.
+	int burningCount();
+
+	// The current state of the fire as a maze.
+	PackedMaze maze();
+
+	enum Kind {
+		SCAN, //StaticGenAndSearch.fireSpreads on every step, O(dim^2) per step
+		FRONTIER, //only the open cells next to the fire, O(frontier) per step (see FrontierFire)
+		BITBOARD; //64 cells at a time with bit operations, O(dim^2/64) per step (see BitboardFire)
+
+		public FireEngine start(PackedMaze maze, double q) {
+			return start(maze, q, null);
+		}
+
+		// An engine on the fire of map that writes every new fire into map's PathNodes.
+		public FireEngine start(PathNode[][] map, double q) {
+			return start(PackedMaze.fromMap(map), q, map);
+		}
+
+		FireEngine start(PackedMaze maze, double q, PathNode[][] mirror) {
+			switch (this) {
+			case SCAN:
+				return new ScanFire(maze, q, mirror);
+			case BITBOARD:
+				return new BitboardFire(maze, q, mirror);
+			default:
+				return new FrontierFire(maze, q, mirror);
+			}
+		}
+	}
+}
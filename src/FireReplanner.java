@@ -0,0 +1,294 @@
+import java.util.Arrays;
+
+// FireReplanner keeps the shortest path from a person to the goal of a fire maze up to date as
+// the fire spreads, with D* Lite (Koenig and Likhachev). The search runs backward from the goal,
+// so g[cell] is the cost of the cheapest path from cell to the goal and stays valid when the
+// person moves. After a fire step only the cells whose cost changed (the new fires, and for
+// strategy 3 the cells next to them) are updated, and the search repairs the part of its tree
+// those changes reach instead of starting over. A replan therefore costs about as much as the
+// fire changed rather than a search of the whole maze.
+//
+// Entering a cell costs 1, or 1 + its risk of catching fire in the next step, read from the
+// engine's FireRiskMap, when the replanner predicts the fire (strategy 3); occupied and burning
+// cells cannot be entered. Keys are [min(g, rhs) + h + km, min(g, rhs)], kept as the two
+// priorities of an IndexedMinHeap, where h is the Manhattan distance to the person, which
+// never overestimates since every move costs at least 1, and km adds up how far the person has
+// moved since the search began.
+//
+// Given a FireArrivalField, the replanner looks further ahead (strategy 4): every open cell
+// also costs LOOKAHEAD_WEIGHT times the chance the fire has reached it by the time the person
+// could first get there, its distance from the person when the field was read. A field only
+// describes the fire it was simulated from, so lookAhead reads a new one as the fire moves;
+// the cells whose charge changed are repaired like any other change of cost.
+//
+// Costs are counted in units of 1/SCALE, rounding the risk, so that every g, rhs and key is a
+// whole number and sums that should tie compare equal; with fractional costs, rounding in the
+// last bit of a key can end a search one cell too early.
+public final class FireReplanner {
+	private static final double INFINITY = Double.POSITIVE_INFINITY;
+	private static final double SCALE = 1 << 20;
+	private static final double LOOKAHEAD_WEIGHT = 4; //steps of detour worth taking around a cell sure to be burning
+
+	private final int dim;
+	private final long[] blocked;
+	private final FireEngine fire;
+	private final FireRiskMap risk; //null unless the fire is predicted
+	private final double[] entryCost; //entryCost[k] of entering an open cell with k burning neighbors, infinite for CLOSED
+	private double[] lookahead; //the field's charge for entering each cell, null without a field
+	private final int goal;
+	private final double[] g;
+	private final double[] rhs;
+	private final IndexedMinHeap open = new IndexedMinHeap();
+	private int start; //the person
+	private int last; //where the person was when km was last updated
+	private double km;
+	int nodesExpanded; //expansions of the most recent replan
+
+	// A replanner for a person at start on the maze of fire, heading for goal. If predictsFire,
+	// cells are weighted by their risk of catching fire.
+	public FireReplanner(FireEngine fire, int start, int goal, boolean predictsFire) {
+		this(fire, start, goal, predictsFire, null);
+	}
+
+	// A replanner that predicts the fire and also charges each cell for its chance of burning,
+	// in field, by the time the person could get there.
+	public FireReplanner(FireEngine fire, int start, int goal, FireArrivalField field) {
+		this(fire, start, goal, true, field);
+	}
+
+	private FireReplanner(FireEngine fire, int start, int goal, boolean predictsFire, FireArrivalField field) {
+		PackedMaze maze = fire.maze();
+		this.dim = maze.dim;
+		this.blocked = maze.blocked;
+		this.fire = fire;
+		this.risk = predictsFire ? fire.riskMap() : null;
+		this.entryCost = new double[FireRiskMap.CLOSED + 1];
+		for (int k = 0; k < FireRiskMap.CLOSED; k++) {
+			entryCost[k] = SCALE + (predictsFire ? Math.rint(risk.riskFor(k) * SCALE) : 0);
+		}
+		entryCost[FireRiskMap.CLOSED] = INFINITY;
+		this.lookahead = field == null ? null : lookahead(maze, start, field);
+		this.goal = goal;
+		this.start = start;
+		this.last = start;
+		int cells = maze.cellCount();
+		this.g = new double[cells];
+		this.rhs = new double[cells];
+		Arrays.fill(g, INFINITY);
+		Arrays.fill(rhs, INFINITY);
+		open.clear(cells);
+		rhs[goal] = 0;
+		open.insert(goal, heuristic(start, goal), 0);
+		computeShortestPath();
+	}
+
+	// The person moved to cell and then the fire spread, setting newFires on fire. Repairs the
+	// search for the new costs.
+	public void update(int cell, int[] newFires) {
+		km += heuristic(last, cell);
+		last = cell;
+		start = cell;
+		for (int burning : newFires) {
+			costChanged(burning);
+			if (risk != null) { //the risk of the open neighbors went up
+				int row = burning / dim, col = burning % dim;
+				if (row+1 < dim) costChanged(burning+dim);
+				if (col+1 < dim) costChanged(burning+1);
+				if (row-1 >= 0) costChanged(burning-dim);
+				if (col-1 >= 0) costChanged(burning-1);
+			}
+		}
+		computeShortestPath();
+	}
+
+	// Charges the cells from field instead, a field of the fire as it is now, reading each
+	// cell's chance of burning by the time the person could get there from where they stand,
+	// and repairs the search for the cells whose charge changed.
+	public void lookAhead(FireArrivalField field) {
+		if (lookahead == null) {
+			throw new IllegalStateException("the replanner was made without a FireArrivalField");
+		}
+		double[] charge = lookahead(fire.maze(), start, field);
+		double[] old = lookahead;
+		lookahead = charge;
+		for (int cell = 0; cell < charge.length; cell++) {
+			if (charge[cell] != old[cell]) {
+				costChanged(cell);
+			}
+		}
+		computeShortestPath();
+	}
+
+	// Cost of the cheapest path from the person to the goal, infinite if there is none. The
+	// search stops as soon as rhs of the person's cell is right, before its g has to be.
+	public double pathCost() {
+		return rhs[start] / SCALE;
+	}
+
+	// The cell to move to next on a cheapest path, or -1 if the goal cannot be reached.
+	public int nextCell() {
+		return rhs[start] == INFINITY ? -1 : bestNeighbor(start);
+	}
+
+	// The cells of a cheapest path from the person to the goal, both included, or an empty
+	// array if there is none.
+	public int[] path() {
+		if (rhs[start] == INFINITY) {
+			return new int[0];
+		}
+		int[] cells = new int[16];
+		int length = 0;
+		for (int cell = start; ; cell = bestNeighbor(cell)) {
+			if (length == cells.length) {
+				cells = Arrays.copyOf(cells, length * 2);
+			}
+			cells[length++] = cell;
+			if (cell == goal) {
+				return Arrays.copyOf(cells, length);
+			}
+		}
+	}
+
+	// The neighbor of cell on a cheapest path from it. Ties are broken in the order down,
+	// right, up, left.
+	private int bestNeighbor(int cell) {
+		int best = -1;
+		double bestCost = INFINITY;
+		int row = cell / dim, col = cell % dim;
+		if (row+1 < dim && costThrough(cell+dim) < bestCost) { best = cell+dim; bestCost = costThrough(best); }
+		if (col+1 < dim && costThrough(cell+1) < bestCost) { best = cell+1; bestCost = costThrough(best); }
+		if (row-1 >= 0 && costThrough(cell-dim) < bestCost) { best = cell-dim; bestCost = costThrough(best); }
+		if (col-1 >= 0 && costThrough(cell-1) < bestCost) { best = cell-1; }
+		return best;
+	}
+
+	private double costThrough(int cell) {
+		return cost(cell) + g[cell];
+	}
+
+	// Cost of entering a cell.
+	private double cost(int cell) {
+		if (lookahead != null) {
+			return entryCost[risk.burningNeighbors(cell)] + lookahead[cell]; //still infinite when closed
+		}
+		if (risk != null) {
+			return entryCost[risk.burningNeighbors(cell)];
+		}
+		return ((blocked[cell >>> 6] & (1L << cell)) != 0) || fire.isOnFire(cell) ? INFINITY : entryCost[0];
+	}
+
+	// The field's charge for every cell: LOOKAHEAD_WEIGHT times the chance it is burning by the
+	// step the person could first enter it, found by a BFS from start through open cells that
+	// are not burning. Cells the person cannot reach are not charged.
+	private static double[] lookahead(PackedMaze maze, int start, FireArrivalField field) {
+		int dim = maze.dim;
+		double[] charge = new double[maze.cellCount()];
+		int[] dist = new int[maze.cellCount()];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[maze.cellCount()];
+		int head = 0, tail = 0;
+		dist[start] = 0;
+		queue[tail++] = start;
+		while (head < tail) {
+			int cell = queue[head++];
+			charge[cell] = Math.rint(LOOKAHEAD_WEIGHT * field.burnProbability(cell, dist[cell]) * SCALE);
+			int row = cell / dim, col = cell % dim;
+			if (row+1 < dim) tail = visit(maze, cell+dim, dist[cell] + 1, dist, queue, tail);
+			if (col+1 < dim) tail = visit(maze, cell+1, dist[cell] + 1, dist, queue, tail);
+			if (row-1 >= 0) tail = visit(maze, cell-dim, dist[cell] + 1, dist, queue, tail);
+			if (col-1 >= 0) tail = visit(maze, cell-1, dist[cell] + 1, dist, queue, tail);
+		}
+		return charge;
+	}
+
+	// Queues cell at distance d if it is open, not burning and not seen yet, and returns the
+	// new end of the queue.
+	private static int visit(PackedMaze maze, int cell, int d, int[] dist, int[] queue, int tail) {
+		if (dist[cell] < 0 && maze.isEmpty(cell) && !maze.isOnFire(cell)) {
+			dist[cell] = d;
+			queue[tail++] = cell;
+		}
+		return tail;
+	}
+
+	// The cost of entering cell changed, which changes the rhs of every cell that can move into it.
+	private void costChanged(int cell) {
+		int row = cell / dim, col = cell % dim;
+		if (row+1 < dim) updateVertex(cell+dim);
+		if (col+1 < dim) updateVertex(cell+1);
+		if (row-1 >= 0) updateVertex(cell-dim);
+		if (col-1 >= 0) updateVertex(cell-1);
+	}
+
+	private void updateVertex(int cell) {
+		if (cell != goal) {
+			rhs[cell] = bestSuccessor(cell);
+		}
+		boolean queued = open.contains(cell);
+		if (g[cell] != rhs[cell]) {
+			double k2 = Math.min(g[cell], rhs[cell]);
+			if (queued) {
+				open.update(cell, k2 + heuristic(start, cell) + km, k2);
+			} else {
+				open.insert(cell, k2 + heuristic(start, cell) + km, k2);
+			}
+		} else if (queued) {
+			open.remove(cell);
+		}
+	}
+
+	// The lowest cost to the goal through one of the neighbors of cell.
+	private double bestSuccessor(int cell) {
+		int row = cell / dim, col = cell % dim;
+		double best = INFINITY;
+		if (row+1 < dim) best = Math.min(best, costThrough(cell+dim));
+		if (col+1 < dim) best = Math.min(best, costThrough(cell+1));
+		if (row-1 >= 0) best = Math.min(best, costThrough(cell-dim));
+		if (col-1 >= 0) best = Math.min(best, costThrough(cell-1));
+		return best;
+	}
+
+	private void computeShortestPath() {
+		nodesExpanded = 0;
+		while (!open.isEmpty()) {
+			int top = open.peek();
+			double k1 = open.priorityOf(top), k2 = open.tieBreakOf(top);
+			double startK2 = Math.min(g[start], rhs[start]);
+			double startK1 = startK2 + km; //h(start, start) == 0
+			boolean beforeStart = k1 < startK1 || k1 == startK1 && k2 < startK2;
+			if (!beforeStart && rhs[start] <= g[start]) {
+				break;
+			}
+			nodesExpanded++;
+			double newK2 = Math.min(g[top], rhs[top]);
+			double newK1 = newK2 + heuristic(start, top) + km;
+			if (k1 < newK1 || k1 == newK1 && k2 < newK2) { //the key is out of date since the person moved
+				open.update(top, newK1, newK2);
+			} else if (g[top] > rhs[top]) { //overconsistent: the cell got cheaper
+				g[top] = rhs[top];
+				open.remove(top);
+				predecessorsChanged(top);
+			} else { //underconsistent: the cell got more expensive
+				g[top] = INFINITY;
+				updateVertex(top);
+				predecessorsChanged(top);
+			}
+		}
+	}
+
+	// g of cell changed, which changes the rhs of the neighbors that can move into it.
+	private void predecessorsChanged(int cell) {
+		if (cost(cell) == INFINITY) {
+			return; //no neighbor can move into it, so their rhs does not depend on it
+		}
+		int row = cell / dim, col = cell % dim;
+		if (row+1 < dim) updateVertex(cell+dim);
+		if (col+1 < dim) updateVertex(cell+1);
+		if (row-1 >= 0) updateVertex(cell-dim);
+		if (col-1 >= 0) updateVertex(cell-1);
+	}
+
+	private double heuristic(int a, int b) {
+		return SCALE * (Math.abs(a / dim - b / dim) + Math.abs(a % dim - b % dim));
+	}
+}
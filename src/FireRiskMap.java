@@ -0,0 +1,97 @@
+// FireRiskMap holds the chance of every cell catching fire in the next step, the same numbers
+// computeFireProbability returns: 1-(1-q)^k for an open cell with k burning neighbors, and 0 for
+// occupied and burning cells. Since k can only be 0 to 4, the map stores one byte per cell (k,
+// or CLOSED for an occupied or burning cell) and a table of the six possible risks, so reading
+// a risk is one lookup and no Math.pow.
+//
+// The map belongs to a FireEngine, which tells it about every cell that catches fire. A new
+// fire closes its own cell and adds one to the count of each open neighbor, so keeping the map
+// up to date costs O(1) per new fire; only building it looks at every cell.
+public final class FireRiskMap {
+	static final byte CLOSED = 5;
+
+	private final int dim;
+	private final byte[] burningNeighbors; //k for open cells, CLOSED for occupied or burning ones
+	private final double[] risk; //risk[k], with risk[CLOSED] = 0
+
+	// The risk map of maze's fire with flammability q.
+	FireRiskMap(PackedMaze maze, double q) {
+		this.dim = maze.dim;
+		this.risk = new double[CLOSED + 1];
+		for (int k = 1; k <= 4; k++) {
+			risk[k] = 1-(Math.pow(1-q, k));
+		}
+		int cells = maze.cellCount();
+		this.burningNeighbors = new byte[cells];
+		for (int cell = 0; cell < cells; cell++) {
+			if (!maze.isOpen(cell)) {
+				burningNeighbors[cell] = CLOSED;
+			}
+		}
+		for (int w = 0; w < maze.onFire.length; w++) {
+			for (long fire = maze.onFire[w]; fire != 0; fire &= fire - 1) {
+				ignite((w << 6) + Long.numberOfTrailingZeros(fire), null);
+			}
+		}
+	}
+
+	public int dim() {
+		return dim;
+	}
+
+	// Chance that cell catches fire in the next step.
+	public double risk(int cell) {
+		return risk[burningNeighbors[cell]];
+	}
+
+	public double risk(int row, int col) {
+		return risk[burningNeighbors[row * dim + col]];
+	}
+
+	// Risk of an open cell with k burning neighbors (0 for k == CLOSED).
+	public double riskFor(int k) {
+		return risk[k];
+	}
+
+	// Number of burning neighbors of an open cell, or CLOSED.
+	public int burningNeighbors(int cell) {
+		return burningNeighbors[cell];
+	}
+
+	// The risks of all cells, as computeFireProbability returns them.
+	public double[][] toArray() {
+		double[][] probabilities = new double[dim][dim];
+		for (int i = 0; i < dim; i++) {
+			for (int j = 0; j < dim; j++) {
+				probabilities[i][j] = risk(i, j);
+			}
+		}
+		return probabilities;
+	}
+
+	// Records that cell caught fire. The open neighbors that had no burning neighbor before, and
+	// so could not catch fire until now, are written to exposed (which needs room for 4, or
+	// may be null) and their number is returned.
+	int ignite(int cell, int[] exposed) {
+		burningNeighbors[cell] = CLOSED;
+		int row = cell / dim, col = cell % dim;
+		int count = 0;
+		if (row+1 < dim) count = addBurningNeighbor(cell+dim, exposed, count);
+		if (col+1 < dim) count = addBurningNeighbor(cell+1, exposed, count);
+		if (row-1 >= 0) count = addBurningNeighbor(cell-dim, exposed, count);
+		if (col-1 >= 0) count = addBurningNeighbor(cell-1, exposed, count);
+		return count;
+	}
+
+	private int addBurningNeighbor(int cell, int[] exposed, int count) {
+		byte k = burningNeighbors[cell];
+		if (k == CLOSED) {
+			return count;
+		}
+		burningNeighbors[cell] = (byte) (k + 1);
+		if (k == 0 && exposed != null) {
+			exposed[count++] = cell;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,186 @@
+import java.util.Queue;
+
+// FireStrategyEvaluator measures how often each of the three fire strategies (ignoreFireSpreading,
+// avoidFireSpreading and predictFire) escapes, over a number of trials at each of a list of
+// flammabilities q. The (q, trial) pairs run in parallel on a MonteCarloEngine, so a sweep
+// spreads over all cores and gives the same counts however it is split.
+//
+// The strategies are compared with common random numbers: in a trial all three run on their
+// own copy of the same maze and face the same fire. The fire never depends on where the person
+// is, so each strategy spreads it with a fresh MazeRandom from one seed drawn for the trial,
+// and the fire burns the same cells at the same steps in all three runs. The difference between
+// two strategies in a trial is then only the difference of their choices, which makes the
+// difference of their success rates far less noisy than with a fire drawn for each of them.
+//
+// Given a number of field samples, a trial also runs Strategy 4 (planAheadOfFire, PLAN_AHEAD),
+// which simulates the fire that many times every few steps of a trial; it is left out by
+// default since that costs far more than the other three together.
+//
+// When StaticGenAndSearch.records is set, every strategy run of a trial is sent to it as a
+// TrialRecord, with the time steps it survived as its path length and the time of the whole
+// run, initial path included, as its nanos. When StaticGenAndSearch.fireFailures is set, every
+// run that did not escape is added to it as a Failure, which replay runs again with an
+// observer, e.g. StepObserver.recording to look at it as an animation.
+public final class FireStrategyEvaluator {
+	public static final int IGNORE_FIRE = 0;
+	public static final int AVOID_FIRE = 1;
+	public static final int PREDICT_FIRE = 2;
+	public static final int STRATEGIES = 3; //the strategies run by default
+	public static final int PLAN_AHEAD = 3; //only run with field samples
+
+	private final MonteCarloEngine engine;
+	private final int dim;
+	private final double p;
+	private final FireEngine.Kind fireEngine;
+	private final int fieldSamples;
+
+	// Trials on dim x dim mazes of density p, with the fire spread by fireEngine.
+	public FireStrategyEvaluator(MonteCarloEngine engine, int dim, double p, FireEngine.Kind fireEngine) {
+		this(engine, dim, p, fireEngine, 0);
+	}
+
+	// The same, also running Strategy 4 with fieldSamples runs of the fire if fieldSamples > 0.
+	public FireStrategyEvaluator(MonteCarloEngine engine, int dim, double p, FireEngine.Kind fireEngine, int fieldSamples) {
+		this.engine = engine;
+		this.dim = dim;
+		this.p = p;
+		this.fireEngine = fireEngine;
+		this.fieldSamples = fieldSamples;
+	}
+
+	// Number of strategies a trial runs: STRATEGIES, plus PLAN_AHEAD with field samples.
+	public int strategies() {
+		return fieldSamples > 0 ? STRATEGIES + 1 : STRATEGIES;
+	}
+
+	// Runs trials trials at each flammability and returns the number of escapes, where
+	// result[i][s] is how many trials at flammabilities[i] strategy s escaped. Trial t at
+	// flammabilities[i] uses stream i*trials + t of seed.
+	public long[][] run(double[] flammabilities, int trials, long seed) {
+		return engine.run(flammabilities, trials, strategies(), seed, (q, random, counts) -> {
+			boolean[] escaped = trial(q, random);
+			for (int s = 0; s < escaped.length; s++) {
+				if (escaped[s]) {
+					counts[s]++;
+				}
+			}
+		});
+	}
+
+	public int dim() {
+		return dim;
+	}
+
+	// One trial: draws a maze and a fire seed from random and runs every strategy on them.
+	// Returns whether each strategy escaped, indexed by IGNORE_FIRE, AVOID_FIRE, PREDICT_FIRE and,
+	// with field samples, PLAN_AHEAD.
+	public boolean[] trial(double q, MazeRandom random) {
+		PackedMaze maze = generateFireMaze(dim, p, random);
+		long fireSeed = random.nextLong();
+		boolean[] escaped = new boolean[strategies()];
+		AsyncRecordSink records = StaticGenAndSearch.records;
+		Queue<Failure> failures = StaticGenAndSearch.fireFailures;
+		try {
+			for (int s = 0; s < escaped.length; s++) {
+				if (records == null) {
+					escaped[s] = run(s, maze, q, new MazeRandom(fireSeed), StepObserver.NO_OP);
+				} else {
+					Outcome outcome = new Outcome();
+					long started = System.nanoTime();
+					escaped[s] = run(s, maze, q, new MazeRandom(fireSeed), outcome);
+					long nanos = System.nanoTime() - started;
+					records.accept(new TrialRecord(outcome.strategy, dim, p, q, random.seed(), escaped[s], -1, -1, outcome.time, nanos));
+				}
+				if (failures != null && !escaped[s]) {
+					failures.add(new Failure(s, q, random.seed()));
+				}
+			}
+		} catch (Exception e) {
+			throw new IllegalStateException("a fire strategy failed", e);
+		}
+		return escaped;
+	}
+
+	// Runs the strategy of failure again on the maze and fire of its trial, telling observer
+	// about every step, and returns whether it escaped this time (it should not). The evaluator
+	// has to be made like the one the failure came from.
+	public boolean replay(Failure failure, StepObserver observer) throws Exception {
+		MazeRandom random = new MazeRandom(failure.seed);
+		PackedMaze maze = generateFireMaze(dim, p, random);
+		return run(failure.strategy, maze, failure.q, new MazeRandom(random.nextLong()), observer);
+	}
+
+	// Runs strategy on a fresh copy of maze, from the same initial path it would be given by
+	// fireMazeSolvability.
+	private boolean run(int strategy, PackedMaze maze, double q, MazeRandom fire, StepObserver observer) throws Exception {
+		PathNode[][] map = maze.toMap();
+		PathNode start = map[0][0], goal = map[dim-1][dim-1];
+		switch (strategy) {
+		case IGNORE_FIRE:
+			PathNode path = StaticGenAndSearch.searchAStarForFire(start, goal, map, true).goal();
+			return StaticGenAndSearch.ignoreFireSpreading(map, path, q, fire, fireEngine, observer);
+		case AVOID_FIRE:
+			path = StaticGenAndSearch.searchAStarForFire(start, goal, map, true).goal();
+			return StaticGenAndSearch.avoidFireSpreading(map, path, q, fire, fireEngine, observer);
+		case PREDICT_FIRE:
+			path = StaticGenAndSearch.searchAStarPredict(map, q, start, goal).goal();
+			return StaticGenAndSearch.predictFire(map, path, q, fire, fireEngine, observer);
+		default:
+			path = StaticGenAndSearch.searchAStarPredict(map, q, start, goal).goal();
+			return StaticGenAndSearch.planAheadOfFire(map, path, q, fire, fireEngine, observer, fieldSamples);
+		}
+	}
+
+	// A run that did not escape: the strategy, the flammability and the seed of the trial's
+	// stream, from which replay draws the same maze and fire again.
+	public static final class Failure {
+		public final int strategy;
+		public final double q;
+		public final long seed;
+
+		Failure(int strategy, double q, long seed) {
+			this.strategy = strategy;
+			this.q = q;
+			this.seed = seed;
+		}
+	}
+
+	// Remembers the name a strategy reports itself by and the time step it finished at.
+	private static final class Outcome implements StepObserver {
+		String strategy = "";
+		int time;
+
+		public void personMoved(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd) {
+		}
+
+		public void fireSpread(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd, FireEngine fire) {
+		}
+
+		public void finished(String strategy, int time, boolean escaped) {
+			this.strategy = strategy;
+			this.time = time;
+		}
+	}
+
+	// A fire maze (one cell on fire) where the fire can reach the start and the goal can be
+	// reached from the start without going through the fire. Mazes that are not are redrawn.
+	public static PackedMaze generateFireMaze(int dim, double p, MazeRandom random) {
+		while (true) {
+			PathNode[][] map = StaticGenAndSearch.generateMap(dim, p, true, random);
+			PathNode initialFire;
+			try {
+				initialFire = StaticGenAndSearch.findInitialFire(map);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			initialFire.isOnFire = false; //so A* can find a path between start and the fire
+			PathNode fireToStart = StaticGenAndSearch.searchAStarForFire(map[0][0], initialFire, map, false).goal();
+			initialFire.isOnFire = true;
+			StaticGenAndSearch.resetMap(map);
+			if (fireToStart != null && StaticGenAndSearch.searchAStarForFire(map[0][0], map[dim-1][dim-1], map, true).goal() != null) {
+				return PackedMaze.fromMap(map);
+			}
+			StaticGenAndSearch.log("Either the fire cannot reach start or there's no path from start to goal. Making new maze...");
+		}
+	}
+}
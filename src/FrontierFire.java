@@ -0,0 +1,118 @@
+import java.util.Arrays;
+
+// FrontierFire spreads the fire by looking only at the frontier: the open cells with at least
+// one burning neighbor, which are the only cells that can catch fire. Its FireRiskMap keeps the
+// number of burning neighbors of every cell, so a frontier cell's chance of catching fire is a
+// lookup in a table of 1-(1-q)^k rather than four neighbor checks and a Math.pow.
+//
+// A step draws one random number per frontier cell, then sets the new fires and updates the
+// risk map around them, adding a neighbor to the frontier when its count goes from 0 to 1.
+// Cells leave the frontier only by catching fire, so the frontier is compacted in place during
+// the draws. A step therefore costs O(frontier) instead of the O(dim^2) of a full scan; only
+// building the engine looks at every cell.
+final class FrontierFire implements FireEngine {
+	private final int dim;
+	private final long[] blocked; //shared with the maze the engine started from, never written
+	private final long[] onFire;
+	private final FireRiskMap risk;
+	private final int[] exposed = new int[4]; //neighbors of a new fire that join the frontier
+	private final PathNode[][] mirror; //null if there is no PathNode map to update
+	private int[] frontier;
+	private int frontierSize;
+	private int[] ignited; //cells that caught fire in the current step
+	private int ignitedCount;
+	private int burning;
+
+	FrontierFire(PackedMaze maze, double q, PathNode[][] mirror) {
+		this.dim = maze.dim;
+		this.blocked = maze.blocked;
+		this.onFire = maze.onFire.clone();
+		this.risk = new FireRiskMap(maze, q);
+		this.mirror = mirror;
+		this.frontier = new int[64];
+		this.ignited = new int[64];
+		for (int cell = 0; cell < maze.cellCount(); cell++) {
+			if (maze.isOnFire(cell)) {
+				burning++;
+			} else if (risk.burningNeighbors(cell) > 0 && risk.burningNeighbors(cell) != FireRiskMap.CLOSED) {
+				addToFrontier(cell);
+			}
+		}
+	}
+
+	@Override
+	public int step(MazeRandom rng) {
+		int count = 0;
+		int kept = 0;
+		for (int i = 0; i < frontierSize; i++) {
+			int cell = frontier[i];
+			if (rng.nextDouble() <= risk.risk(cell)) {
+				if (count == ignited.length) {
+					ignited = Arrays.copyOf(ignited, count * 2);
+				}
+				ignited[count++] = cell;
+			} else {
+				frontier[kept++] = cell;
+			}
+		}
+		frontierSize = kept;
+		for (int i = 0; i < count; i++) { //all fires of the step start at once...
+			int cell = ignited[i];
+			onFire[cell >>> 6] |= 1L << cell;
+			if (mirror != null) {
+				mirror[cell / dim][cell % dim].isOnFire = true;
+			}
+		}
+		for (int i = 0; i < count; i++) { //...before any of them can spread
+			ignite(ignited[i]);
+		}
+		ignitedCount = count;
+		burning += count;
+		return count;
+	}
+
+	// Updates the risk map for a newly burning cell and adds the neighbors it exposes to the fire.
+	private void ignite(int cell) {
+		int count = risk.ignite(cell, exposed);
+		for (int i = 0; i < count; i++) {
+			addToFrontier(exposed[i]);
+		}
+	}
+
+	private void addToFrontier(int cell) {
+		if (frontierSize == frontier.length) {
+			frontier = Arrays.copyOf(frontier, frontierSize * 2);
+		}
+		frontier[frontierSize++] = cell;
+	}
+
+	@Override
+	public FireRiskMap riskMap() {
+		return risk;
+	}
+
+	@Override
+	public int[] newFires() {
+		return Arrays.copyOf(ignited, ignitedCount);
+	}
+
+	@Override
+	public boolean isOnFire(int cell) {
+		return (onFire[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	@Override
+	public int burningCount() {
+		return burning;
+	}
+
+	// Number of open cells that can catch fire in the next step.
+	public int frontierSize() {
+		return frontierSize;
+	}
+
+	@Override
+	public PackedMaze maze() {
+		return new PackedMaze(dim, blocked, onFire.clone());
+	}
+}
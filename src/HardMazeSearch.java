@@ -0,0 +1,164 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// HardMazeSearch runs the hill climbing of the hard-maze generator (see
+// StaticGenAndSearch.getHardestMaze) on PackedMazes. One climb step tries all dim*dim children
+// of a maze, each the maze with one cell's occupation flipped, and keeps the hardest solvable
+// one. The children are independent, so the cells are split across a ForkJoinPool: each leaf
+// task copies the maze's obstacle words into an overlay of its own, flips one cell of the
+// overlay at a time, solves it with its thread's SearchWorkspace and flips it back, so the
+// maze being climbed is never written to. The halves are reduced by keeping the harder child,
+// and the lower cell on a tie, which is the child the one-cell-at-a-time loop would keep.
+//
+// climb repeats the step from a maze until no child is harder. The mazes along the way are
+// MazeCandidates (the starting maze plus a chain of flips), so a step allocates one small
+// object instead of a copy of the maze.
+//
+// Hardness is the largest fringe of DFS (usesDFS) or the number of nodes A*-Manhattan expands.
+public final class HardMazeSearch {
+	// Cells per leaf task. Each child is a full search, so small leaves still amortize the
+	// overlay copy and keep all workers busy.
+	private static final int BLOCK_SIZE = 64;
+
+	// The child reached by flipping cell, and its hardness.
+	public static final class Flip {
+		public final int cell;
+		public final int hardness;
+
+		Flip(int cell, int hardness) {
+			this.cell = cell;
+			this.hardness = hardness;
+		}
+	}
+
+	private final ForkJoinPool pool;
+	private final boolean usesDFS;
+
+	public HardMazeSearch(ForkJoinPool pool, boolean usesDFS) {
+		this.pool = pool;
+		this.usesDFS = usesDFS;
+	}
+
+	// A search on the common ForkJoinPool, which has one worker per available core.
+	public static HardMazeSearch common(boolean usesDFS) {
+		return new HardMazeSearch(ForkJoinPool.commonPool(), usesDFS);
+	}
+
+	public boolean usesDFS() {
+		return usesDFS;
+	}
+
+	// Hardness of a maze, or -1 if it cannot be solved.
+	public static int hardness(PackedMaze maze, boolean usesDFS) {
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		boolean solved = statistic(maze, usesDFS, workspace);
+		return solved ? (usesDFS ? workspace.maxFringe : workspace.nodesExpanded) : -1;
+	}
+
+	public int hardness(PackedMaze maze) {
+		return hardness(maze, usesDFS);
+	}
+
+	// Runs the metric's search on maze, leaving its statistics in workspace, and returns
+	// whether it solved the maze.
+	private static boolean statistic(PackedMaze maze, boolean usesDFS, SearchWorkspace workspace) {
+		if (usesDFS) {
+			return workspace.depthFirstSearch(maze) >= 0;
+		}
+		return workspace.aStar(maze, maze.start(), maze.goal(), false) >= 0;
+	}
+
+	// Hill climbs from start: repeatedly moves to the hardest child until no child is harder,
+	// and returns the last maze reached. Like getHardestMaze, the first step has to beat the
+	// statistic of start's own search even if start cannot be solved.
+	public MazeCandidate climb(PackedMaze start) {
+		MazeCandidate current = MazeCandidate.of(start, startingHardness(start));
+		Flip child;
+		while ((child = hardestChild(current, current.hardness())) != null) {
+			current = current.withFlip(child.cell, child.hardness);
+		}
+		return current;
+	}
+
+	// One climb step: the hardest solvable child of maze that is harder than toBeat, or null if
+	// there is none.
+	public Flip hardestChild(PackedMaze maze, int toBeat) {
+		return hardestChild(MazeCandidate.of(maze, toBeat), toBeat);
+	}
+
+	public Flip hardestChild(MazeCandidate maze, int toBeat) {
+		Flip best = pool.invoke(new ChildTask(maze, usesDFS, 0, maze.dim() * maze.dim()));
+		return best != null && best.hardness > toBeat ? best : null;
+	}
+
+	// The same step on the calling thread, for checking and profiling the parallel version and
+	// for callers that already run many climbs in parallel.
+	public Flip hardestChildSequential(PackedMaze maze, int toBeat) {
+		return hardestChildSequential(MazeCandidate.of(maze, toBeat), toBeat);
+	}
+
+	public Flip hardestChildSequential(MazeCandidate maze, int toBeat) {
+		Flip best = evaluate(maze, usesDFS, 0, maze.dim() * maze.dim());
+		return best != null && best.hardness > toBeat ? best : null;
+	}
+
+	// The statistic of start's own search, the hardness a climb from start has to beat first.
+	public int startingHardness(PackedMaze start) {
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		statistic(start, usesDFS, workspace);
+		return usesDFS ? workspace.maxFringe : workspace.nodesExpanded;
+	}
+
+	// Solves the children of cells [from, to) on an overlay of the maze's obstacle words and
+	// returns the hardest solvable one, or null.
+	private static Flip evaluate(MazeCandidate maze, boolean usesDFS, int from, int to) {
+		long[] overlay = maze.blockedWords();
+		PackedMaze child = new PackedMaze(maze.dim(), overlay, maze.base().onFire); //sees every change to overlay
+		Flip best = null;
+		for (int cell = from; cell < to; cell++) {
+			overlay[cell >>> 6] ^= 1L << cell;
+			int hardness = hardness(child, usesDFS);
+			overlay[cell >>> 6] ^= 1L << cell;
+			if (hardness >= 0 && (best == null || hardness > best.hardness)) {
+				best = new Flip(cell, hardness);
+			}
+		}
+		return best;
+	}
+
+	// The harder of two children; a, the one with the lower cell, on a tie.
+	private static Flip harder(Flip a, Flip b) {
+		if (a == null) {
+			return b;
+		}
+		return b != null && b.hardness > a.hardness ? b : a;
+	}
+
+	private static final class ChildTask extends RecursiveTask<Flip> {
+		private static final long serialVersionUID = 1L;
+
+		private final MazeCandidate maze;
+		private final boolean usesDFS;
+		private final int from, to; //cells [from, to)
+
+		ChildTask(MazeCandidate maze, boolean usesDFS, int from, int to) {
+			this.maze = maze;
+			this.usesDFS = usesDFS;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Flip compute() {
+			if (to - from > BLOCK_SIZE) {
+				int mid = (from + to) >>> 1;
+				ChildTask left = new ChildTask(maze, usesDFS, from, mid);
+				ChildTask right = new ChildTask(maze, usesDFS, mid, to);
+				left.fork();
+				Flip rightBest = right.compute();
+				return harder(left.join(), rightBest);
+			}
+			return evaluate(maze, usesDFS, from, to);
+		}
+	}
+}
@@ -0,0 +1,228 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// HardestMazeRestarts runs the random restarts of findHardestPLevel concurrently. Every
+// restart draws a density and a maze from its own MazeRandom stream and hill climbs it (see
+// HardMazeSearch), evaluating its children on its own thread. Restarts run on a fixed number of
+// threads fed through a bounded queue; when the queue is full the submitting thread runs the
+// restart itself, so at most threads + queue restarts are ever waiting.
+//
+// The best maze found so far is published in an AtomicReference, updated by compare-and-set,
+// so restarts never lock. When climbs have a step limit (maxSteps), a climb checks before
+// every step whether it can still beat that maze. DFS pushes a cell at most once and A*
+// expands it at most once, so the hardness of a maze is at most the number of cells reachable
+// from its start. A climb with k steps left flips at most k cells, so it can only reach cells
+// whose path from the start crosses at most k cells occupied now (see reachableWithin). If even
+// that many cells cannot beat the best, the climb is abandoned. Dense restarts, whose start
+// sits in a small pocket, are dropped after a step or two; with no limit, climbs run to their
+// local maximum as before.
+//
+// Ties are broken toward the lower restart index, both when publishing and when pruning, so
+// the hardest maze returned does not depend on how the restarts were scheduled.
+public final class HardestMazeRestarts {
+	// Statistics of one restart.
+	public static final class Restart {
+		public final int index;
+		public final double density;
+		public final int startHardness; //hardness the climb had to beat first
+		public final int hardness; //hardness of the maze the climb ended on
+		public final int steps; //climb steps taken
+		public final long searches; //mazes solved, including the starting maze
+		public final long elapsedNanos;
+		public final boolean abandoned; //stopped early because it could not beat the best
+		final MazeCandidate maze;
+
+		Restart(int index, double density, int startHardness, MazeCandidate maze, long searches, long elapsedNanos, boolean abandoned) {
+			this.index = index;
+			this.density = density;
+			this.startHardness = startHardness;
+			this.hardness = maze.hardness();
+			this.steps = maze.flipCount();
+			this.searches = searches;
+			this.elapsedNanos = elapsedNanos;
+			this.abandoned = abandoned;
+			this.maze = maze;
+		}
+	}
+
+	// The hardest maze over all restarts and the statistics of every restart, in index order.
+	public static final class Result {
+		public final MazeCandidate hardest; //null if no restart found a maze harder than 0
+		public final List<Restart> restarts;
+		public final int threads;
+		public final long elapsedNanos;
+
+		Result(MazeCandidate hardest, List<Restart> restarts, int threads, long elapsedNanos) {
+			this.hardest = hardest;
+			this.restarts = restarts;
+			this.threads = threads;
+			this.elapsedNanos = elapsedNanos;
+		}
+	}
+
+	// The best maze published so far and the restart that found it.
+	private static final class Best {
+		final int hardness;
+		final int index;
+		final MazeCandidate maze;
+
+		Best(int hardness, int index, MazeCandidate maze) {
+			this.hardness = hardness;
+			this.index = index;
+			this.maze = maze;
+		}
+
+		// True if a maze of this hardness from restart index would replace this one.
+		boolean beatenBy(int otherHardness, int otherIndex) {
+			return otherHardness > hardness || otherHardness == hardness && otherIndex < index;
+		}
+	}
+
+	private final HardMazeSearch search;
+	private final int threads;
+	private final int maxSteps;
+
+	// Restarts climbing with search's metric on threads threads, each climb taking at most
+	// maxSteps steps (Integer.MAX_VALUE for no limit).
+	public HardestMazeRestarts(HardMazeSearch search, int threads, int maxSteps) {
+		this.search = search;
+		this.threads = threads;
+		this.maxSteps = maxSteps;
+	}
+
+	// Runs restarts restarts on dim x dim mazes. Restart i uses stream i of seed.
+	// Abandoned restarts could never have beaten the best, so the hardest maze does not depend
+	// on the scheduling, though which restarts are abandoned does.
+	public Result run(int dim, int restarts, long seed) {
+		long startTime = System.nanoTime();
+		AtomicReference<Best> best = new AtomicReference<Best>(new Best(0, Integer.MAX_VALUE, null));
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(threads), new ThreadPoolExecutor.CallerRunsPolicy());
+		List<Future<Restart>> futures = new ArrayList<Future<Restart>>();
+		try {
+			for (int i = 0; i < restarts; i++) {
+				int index = i;
+				futures.add(executor.submit(() -> restart(dim, index, MazeRandom.forStream(seed, index), best)));
+			}
+			List<Restart> results = new ArrayList<Restart>();
+			MazeCandidate hardest = null;
+			for (Future<Restart> future : futures) {
+				Restart restart = future.get();
+				results.add(restart);
+				if (!restart.abandoned && restart.hardness > (hardest == null ? 0 : hardest.hardness())) { //the first restart wins a tie
+					hardest = restart.maze;
+				}
+			}
+			return new Result(hardest, Collections.unmodifiableList(results), threads, System.nanoTime() - startTime);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("a restart failed", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the restarts", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// One restart: draws a density and a maze, then climbs until no child is harder, the step
+	// limit is reached or the climb can no longer beat the best.
+	private Restart restart(int dim, int index, MazeRandom rng, AtomicReference<Best> best) {
+		long startTime = System.nanoTime();
+		double p = rng.nextDouble();
+		PackedMaze start = PackedMaze.generate(dim, p, false, rng);
+		int startHardness = search.startingHardness(start);
+		MazeCandidate current = MazeCandidate.of(start, startHardness);
+		publish(best, current, index);
+		long searches = 1;
+		boolean abandoned = false;
+		while (current.flipCount() < maxSteps) {
+			int stepsLeft = maxSteps - current.flipCount();
+			if (stepsLeft < dim * dim && !best.get().beatenBy(reachableWithin(current.materialize(), stepsLeft), index)) {
+				abandoned = true;
+				break;
+			}
+			HardMazeSearch.Flip child = search.hardestChildSequential(current, current.hardness());
+			searches += (long) dim * dim;
+			if (child == null) {
+				break;
+			}
+			current = current.withFlip(child.cell, child.hardness);
+			publish(best, current, index);
+		}
+		return new Restart(index, p, startHardness, current, searches, System.nanoTime() - startTime, abandoned);
+	}
+
+	// The number of cells that some maze reached from maze by at most flips flips can reach from
+	// the start. A cell is reachable after the flips only if a path to it crosses at most flips
+	// cells that are occupied now, so this counts the cells within flips of the start in a 0-1
+	// BFS where entering an occupied cell costs 1 and an empty one costs nothing. Layer k holds
+	// the cells at distance k: the occupied cells next to layer k-1, then the empty cells the
+	// layer spreads to.
+	static int reachableWithin(PackedMaze maze, int flips) {
+		int dim = maze.dim;
+		int[] dist = new int[dim * dim];
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		int[] order = new int[dim * dim]; //cells in order of distance
+		int[] next = new int[dim * dim]; //occupied cells of the next layer
+		int[] neighbors = new int[4];
+		int size = 0, nextSize = 0;
+		int start = maze.start();
+		if (maze.isEmpty(start)) {
+			dist[start] = 0;
+			order[size++] = start;
+		} else if (flips > 0) {
+			dist[start] = 1;
+			next[nextSize++] = start;
+		}
+		int head = 0;
+		for (int layer = 0; layer <= flips; layer++) {
+			System.arraycopy(next, 0, order, size, nextSize);
+			size += nextSize;
+			nextSize = 0;
+			if (head == size) {
+				break; //no cell left to spread from
+			}
+			for (; head < size; head++) {
+				int curr = order[head];
+				int row = curr / dim, col = curr % dim;
+				neighbors[0] = row-1 >= 0 ? curr-dim : -1; //up
+				neighbors[1] = col-1 >= 0 ? curr-1 : -1; //left
+				neighbors[2] = row+1 < dim ? curr+dim : -1; //down
+				neighbors[3] = col+1 < dim ? curr+1 : -1; //right
+				for (int neighbor : neighbors) {
+					if (neighbor < 0 || dist[neighbor] != Integer.MAX_VALUE) {
+						continue;
+					}
+					if (maze.isEmpty(neighbor)) {
+						dist[neighbor] = layer;
+						order[size++] = neighbor;
+					} else if (layer < flips) {
+						dist[neighbor] = layer + 1;
+						next[nextSize++] = neighbor;
+					}
+				}
+			}
+		}
+		return size;
+	}
+
+	// Makes maze the best if it beats the current one.
+	private static void publish(AtomicReference<Best> best, MazeCandidate maze, int index) {
+		Best current = best.get();
+		Best mine = new Best(maze.hardness(), index, maze);
+		while (current.beatenBy(mine.hardness, mine.index)) {
+			if (best.compareAndSet(current, mine)) {
+				return;
+			}
+			current = best.get();
+		}
+	}
+}
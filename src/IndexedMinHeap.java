@@ -0,0 +1,170 @@
+import java.util.Arrays;
+
+// IndexedMinHeap is a binary min-heap of int cell ids ordered by a double priority. It is the
+// fringe of the A* searches. Because position[] records where each cell sits in the heap, a
+// cell can be looked up in O(1) and its priority lowered in place (decreaseKey) instead of
+// pushing a second copy. Priorities are plain doubles, so nothing is boxed or compared
+// through compareTo. The arrays only grow, and clear() resets just the cells still in the
+// heap, so one heap can be reused across searches without allocating.
+//
+// Every entry also has a second priority that breaks ties between equal priorities, for
+// searches with two-part keys (see FireReplanner). insert(cell, key) leaves it at 0, so
+// searches that do not use it see the same order as with a single priority.
+public final class IndexedMinHeap {
+	private int[] heap = new int[0]; //heap[i] is the cell at index i
+	private double[] priority = new double[0]; //priority[i] is the priority of heap[i]
+	private double[] tieBreak = new double[0]; //tieBreak[i] orders entries with equal priority
+	private int[] position = new int[0]; //position[cell] is the index of cell in heap, -1 if absent
+	private int size = 0;
+
+	// Empties the heap and makes sure it can hold cells 0 to cells-1.
+	public void clear(int cells) {
+		if (position.length < cells) {
+			heap = new int[cells];
+			priority = new double[cells];
+			tieBreak = new double[cells];
+			position = new int[cells];
+			Arrays.fill(position, -1);
+		} else {
+			for (int i = 0; i < size; i++) {
+				position[heap[i]] = -1;
+			}
+		}
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int cell) {
+		return position[cell] >= 0;
+	}
+
+	// Priority of a cell that is in the heap.
+	public double priorityOf(int cell) {
+		return priority[position[cell]];
+	}
+
+	// Second priority of a cell that is in the heap.
+	public double tieBreakOf(int cell) {
+		return tieBreak[position[cell]];
+	}
+
+	// The cell with the lowest priority, without removing it.
+	public int peek() {
+		return heap[0];
+	}
+
+	// Adds a cell that is not in the heap.
+	public void insert(int cell, double key) {
+		insert(cell, key, 0);
+	}
+
+	public void insert(int cell, double key, double secondKey) {
+		heap[size] = cell;
+		priority[size] = key;
+		tieBreak[size] = secondKey;
+		position[cell] = size;
+		siftUp(size++);
+	}
+
+	// Sets both priorities of a cell that is already in the heap, higher or lower.
+	public void update(int cell, double key, double secondKey) {
+		int i = position[cell];
+		priority[i] = key;
+		tieBreak[i] = secondKey;
+		siftUp(i);
+		siftDown(position[cell]); //only one of the two moves it
+	}
+
+	// Removes a cell that is in the heap.
+	public void remove(int cell) {
+		int i = position[cell];
+		position[cell] = -1;
+		size--;
+		if (i < size) {
+			heap[i] = heap[size];
+			priority[i] = priority[size];
+			tieBreak[i] = tieBreak[size];
+			position[heap[i]] = i;
+			int moved = heap[i];
+			siftUp(i);
+			siftDown(position[moved]);
+		}
+	}
+
+	// Lowers the priority of a cell that is already in the heap. Higher keys are ignored.
+	public void decreaseKey(int cell, double key) {
+		int i = position[cell];
+		if (key < priority[i]) {
+			priority[i] = key;
+			siftUp(i);
+		}
+	}
+
+	// Removes and returns the cell with the lowest priority.
+	public int poll() {
+		int top = heap[0];
+		position[top] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			priority[0] = priority[size];
+			tieBreak[0] = tieBreak[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private void siftUp(int i) {
+		int cell = heap[i];
+		double key = priority[i];
+		double secondKey = tieBreak[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (priority[parent] < key || priority[parent] == key && tieBreak[parent] <= secondKey) {
+				break;
+			}
+			heap[i] = heap[parent];
+			priority[i] = priority[parent];
+			tieBreak[i] = tieBreak[parent];
+			position[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = cell;
+		priority[i] = key;
+		tieBreak[i] = secondKey;
+		position[cell] = i;
+	}
+
+	private void siftDown(int i) {
+		int cell = heap[i];
+		double key = priority[i];
+		double secondKey = tieBreak[i];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && (priority[child + 1] < priority[child] || priority[child + 1] == priority[child] && tieBreak[child + 1] < tieBreak[child])) {
+				child++;
+			}
+			if (key < priority[child] || key == priority[child] && secondKey <= tieBreak[child]) {
+				break;
+			}
+			heap[i] = heap[child];
+			priority[i] = priority[child];
+			tieBreak[i] = tieBreak[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = cell;
+		priority[i] = key;
+		tieBreak[i] = secondKey;
+		position[cell] = i;
+	}
+}
@@ -0,0 +1,93 @@
+// MazeCandidate is a maze reached by the hard-maze hill climb, stored as the PackedMaze the
+// climb started from plus the cells flipped since. Each candidate keeps only its own flip and
+// a link to the candidate it was derived from, so taking a step costs O(1) memory no matter
+// how large the maze is, and a chain of candidates costs O(flips) in total, where every step
+// used to copy the whole PathNode[][]. The full maze is built only when it is needed, by
+// materialize() or toMap(). Candidates are immutable and can be shared between threads.
+public final class MazeCandidate {
+	private final PackedMaze base;
+	private final MazeCandidate parent; //null for the base maze itself
+	private final int flippedCell; //-1 for the base maze
+	private final int flips;
+	private final int emptyCells;
+	private final int hardness;
+
+	private MazeCandidate(PackedMaze base, MazeCandidate parent, int flippedCell, int flips, int emptyCells, int hardness) {
+		this.base = base;
+		this.parent = parent;
+		this.flippedCell = flippedCell;
+		this.flips = flips;
+		this.emptyCells = emptyCells;
+		this.hardness = hardness;
+	}
+
+	// The base maze itself, with its hardness.
+	public static MazeCandidate of(PackedMaze base, int hardness) {
+		return new MazeCandidate(base, null, -1, 0, base.emptyCount(), hardness);
+	}
+
+	// This maze with the occupation of one more cell flipped.
+	public MazeCandidate withFlip(int cell, int hardness) {
+		return new MazeCandidate(base, this, cell, flips + 1, emptyCells + (isEmpty(cell) ? -1 : 1), hardness);
+	}
+
+	// Whether a cell is empty in this maze: its state in the base maze, flipped once for every
+	// time it appears in the chain.
+	public boolean isEmpty(int cell) {
+		boolean empty = base.isEmpty(cell);
+		for (MazeCandidate c = this; c.parent != null; c = c.parent) {
+			if (c.flippedCell == cell) {
+				empty = !empty;
+			}
+		}
+		return empty;
+	}
+
+	public int emptyCount() {
+		return emptyCells;
+	}
+
+	public PackedMaze base() {
+		return base;
+	}
+
+	public int dim() {
+		return base.dim;
+	}
+
+	// Number of flips from the base maze (a cell flipped twice counts twice).
+	public int flipCount() {
+		return flips;
+	}
+
+	public int hardness() {
+		return hardness;
+	}
+
+	// The flipped cells, oldest first.
+	public int[] flippedCells() {
+		int[] cells = new int[flips];
+		int i = flips;
+		for (MazeCandidate c = this; c.parent != null; c = c.parent) {
+			cells[--i] = c.flippedCell;
+		}
+		return cells;
+	}
+
+	// A fresh copy of the obstacle words of this maze, which a caller may modify.
+	long[] blockedWords() {
+		long[] words = base.blocked.clone();
+		for (MazeCandidate c = this; c.parent != null; c = c.parent) {
+			words[c.flippedCell >>> 6] ^= 1L << c.flippedCell;
+		}
+		return words;
+	}
+
+	public PackedMaze materialize() {
+		return flips == 0 ? base : new PackedMaze(base.dim, blockedWords(), base.onFire);
+	}
+
+	public PathNode[][] toMap() {
+		return materialize().toMap();
+	}
+}
@@ -0,0 +1,188 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import javax.swing.JComponent;
+
+// MazeCanvas draws a maze, a path and the fire as one image with a pixel per cell, scaled up to
+// the size of the component when it is painted. The image uses an indexed color model, so its
+// pixels are the palette indices of the cells (OPEN, BLOCKED, ...) and the color of a cell is
+// set by writing one byte. Showing a new state of the maze classifies every cell again, but
+// only writes the cells whose color changed and only repaints the rectangle around them, so a
+// fire step that changes a few cells of a 2000x2000 maze redraws a few cells rather than 4
+// million, and one canvas can be reused for every step of a fire run.
+//
+// The cells are written by the thread that calls show and read by the event dispatch thread
+// in paintComponent; both hold the canvas's lock while they touch the image.
+public final class MazeCanvas extends JComponent {
+	private static final long serialVersionUID = 1L;
+
+	// Palette indices. The colors are the ones printMazeSolutionGUI always used: black =
+	// obstacle, white = open, blue = path, orange = fire, red = fire on the path, green = the
+	// person, magenta = the person burns.
+	static final byte OPEN = 0, BLOCKED = 1, FIRE = 2, PATH = 3, PATH_ON_FIRE = 4, PERSON = 5, PERSON_BURNED = 6;
+	static final Color[] PALETTE = {Color.white, Color.black, Color.orange, Color.BLUE, Color.RED, Color.green, Color.MAGENTA};
+
+	// Smallest size of a cell on screen, in pixels, for the grid lines and the S and G labels to
+	// be drawn.
+	private static final int GRID_CELL_SIZE = 6;
+	private static final int LABEL_CELL_SIZE = 10;
+
+	private int dim;
+	private BufferedImage image;
+	private byte[] shown; //pixels of image, the palette index of every cell
+	private byte[] next; //scratch buffer the next state is classified into
+
+	public MazeCanvas(int dim) {
+		resize(dim);
+	}
+
+	// The palette of the cells as a color model, for images of palette indices. It is padded
+	// to 8 entries, since a GIF color table holds a power of two colors.
+	static IndexColorModel colorModel() {
+		byte[] r = new byte[8], g = new byte[8], b = new byte[8];
+		for (int i = 0; i < PALETTE.length; i++) {
+			r[i] = (byte) PALETTE[i].getRed();
+			g[i] = (byte) PALETTE[i].getGreen();
+			b[i] = (byte) PALETTE[i].getBlue();
+		}
+		return new IndexColorModel(8, 8, r, g, b);
+	}
+
+	private void resize(int dim) {
+		this.dim = dim;
+		this.image = new BufferedImage(dim, dim, BufferedImage.TYPE_BYTE_INDEXED, colorModel());
+		this.shown = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		this.next = new byte[dim * dim];
+	}
+
+	// Shows map with the path that ends at goal, drawn back through the prev pointers as far as
+	// currentPosition (or the start), and the person at currentPosition.
+	public synchronized void show(PathNode[][] map, PathNode goal, PathNode currentPosition) {
+		prepare(map.length);
+		classify(map, goal, currentPosition, next);
+		flush();
+	}
+
+	// Shows maze with a path of cell ids and the person at cell position (-1 for none).
+	public synchronized void show(PackedMaze maze, int[] path, int position) {
+		prepare(maze.dim);
+		classify(maze, path, position, next);
+		flush();
+	}
+
+	private void prepare(int dim) {
+		if (dim != this.dim) {
+			resize(dim);
+			repaint();
+		}
+	}
+
+	// Palette index of every cell of map, with the path from goal back to currentPosition.
+	static void classify(PathNode[][] map, PathNode goal, PathNode currentPosition, byte[] cells) {
+		int dim = map.length;
+		for (int i = 0; i < dim; i++) {
+			for (int j = 0; j < dim; j++) {
+				cells[i * dim + j] = !map[i][j].isEmpty ? BLOCKED : map[i][j].isOnFire ? FIRE : OPEN;
+			}
+		}
+		for (PathNode node = goal; node != null; node = node.prev) {
+			cells[node.row * dim + node.col] = pathColor(node.isOnFire, node == currentPosition);
+			if (node == currentPosition) {
+				break;
+			}
+		}
+	}
+
+	// Palette index of every cell of maze, with a path of cell ids and the person at position.
+	static void classify(PackedMaze maze, int[] path, int position, byte[] cells) {
+		classify(maze, pathBits(maze, path), position, 0, maze.dim, cells, 0);
+	}
+
+	// The cells of path as bits, one per cell like the words of a PackedMaze.
+	static long[] pathBits(PackedMaze maze, int[] path) {
+		long[] bits = new long[maze.blocked.length];
+		if (path != null) {
+			for (int cell : path) {
+				bits[cell >>> 6] |= 1L << cell;
+			}
+		}
+		return bits;
+	}
+
+	// Palette index of the cells of rows [fromRow, toRow) of maze, written to cells from offset
+	// on, with the path given as bits and the person at position (-1 for none). Working a few
+	// rows at a time lets images be written without holding all of them.
+	static void classify(PackedMaze maze, long[] pathBits, int position, int fromRow, int toRow, byte[] cells, int offset) {
+		int from = fromRow * maze.dim, to = toRow * maze.dim;
+		for (int cell = from; cell < to; cell++) {
+			int w = cell >>> 6;
+			long bit = 1L << cell;
+			boolean onFire = (maze.onFire[w] & bit) != 0;
+			if ((pathBits[w] & bit) != 0 || cell == position) {
+				cells[offset + cell - from] = pathColor(onFire, cell == position);
+			} else {
+				cells[offset + cell - from] = onFire ? FIRE : (maze.blocked[w] & bit) != 0 ? BLOCKED : OPEN;
+			}
+		}
+	}
+
+	private static byte pathColor(boolean onFire, boolean person) {
+		if (person) {
+			return onFire ? PERSON_BURNED : PERSON;
+		}
+		return onFire ? PATH_ON_FIRE : PATH;
+	}
+
+	// Copies the cells of next that changed into the image and repaints the rectangle around
+	// them.
+	private void flush() {
+		int minRow = dim, maxRow = -1, minCol = dim, maxCol = -1;
+		for (int cell = 0; cell < next.length; cell++) {
+			if (next[cell] != shown[cell]) {
+				shown[cell] = next[cell];
+				int row = cell / dim, col = cell % dim;
+				minRow = Math.min(minRow, row);
+				maxRow = Math.max(maxRow, row);
+				minCol = Math.min(minCol, col);
+				maxCol = Math.max(maxCol, col);
+			}
+		}
+		if (maxRow >= 0) {
+			repaint(toScreen(minRow, minCol, maxRow + 1, maxCol + 1));
+		}
+	}
+
+	// The screen rectangle of the cells of rows [fromRow, toRow) and columns [fromCol, toCol).
+	private Rectangle toScreen(int fromRow, int fromCol, int toRow, int toCol) {
+		double cellWidth = (double) getWidth() / dim, cellHeight = (double) getHeight() / dim;
+		int x = (int) Math.floor(fromCol * cellWidth), y = (int) Math.floor(fromRow * cellHeight);
+		return new Rectangle(x, y, (int) Math.ceil(toCol * cellWidth) - x + 1, (int) Math.ceil(toRow * cellHeight) - y + 1);
+	}
+
+	@Override
+	protected synchronized void paintComponent(Graphics g) {
+		int width = getWidth(), height = getHeight();
+		g.drawImage(image, 0, 0, width, height, null);
+		double cellWidth = (double) width / dim, cellHeight = (double) height / dim;
+		if (Math.min(cellWidth, cellHeight) >= GRID_CELL_SIZE) {
+			Rectangle clip = g.getClipBounds() != null ? g.getClipBounds() : new Rectangle(0, 0, width, height);
+			g.setColor(Color.black);
+			for (int i = (int) (clip.y / cellHeight); i <= Math.min(dim, (clip.y + clip.height) / cellHeight + 1); i++) {
+				g.drawLine(clip.x, (int) (i * cellHeight), clip.x + clip.width, (int) (i * cellHeight));
+			}
+			for (int j = (int) (clip.x / cellWidth); j <= Math.min(dim, (clip.x + clip.width) / cellWidth + 1); j++) {
+				g.drawLine((int) (j * cellWidth), clip.y, (int) (j * cellWidth), clip.y + clip.height);
+			}
+		}
+		if (Math.min(cellWidth, cellHeight) >= LABEL_CELL_SIZE) {
+			g.setColor(Color.black);
+			g.setFont(new Font("Times New Roman", Font.BOLD, (int) Math.min(cellWidth, cellHeight) / 2));
+			g.drawString("S", (int) (cellWidth / 3), (int) (cellHeight * 2 / 3));
+			g.drawString("G", (int) ((dim - 1 + 1.0 / 3) * cellWidth), (int) ((dim - 1.0 / 3) * cellHeight));
+		}
+	}
+}
@@ -0,0 +1,291 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+// MazeCorpus is a directory of generated mazes kept as a standing benchmark set. Every maze is
+// stored once, as a MazeFile named by the SHA-256 of its cells, so adding a maze that is
+// already there does nothing. With each maze the corpus records its dim, the density and seed
+// it was generated from and both hardness metrics of the hard-maze search: the largest DFS
+// fringe and the number of nodes A*-Manhattan expands.
+//
+// The records are kept in an append-only index file of fixed-size records, which is read once
+// when the corpus is opened; adding a maze appends one record, so the index is never rewritten
+// and a record cut short by a crash is ignored. Reading the index and every append hold a
+// FileLock on it, and a record is written at the end of the file as it is under the lock, so
+// several runs can add to the same corpus at once without overwriting each other's records;
+// each sees the others' mazes when it next opens the corpus. A maze two runs both add is
+// recorded twice and read back once, with the first record's density and seed.
+//
+// In memory the entries of every (dim, metric) pair are kept sorted by hardness, so "the 100
+// hardest 100x100 mazes for A*" walks 100 entries of a TreeSet instead of reading any maze.
+// The entries of every dim are also kept sorted by density, so a density range only looks at
+// the mazes inside it.
+public final class MazeCorpus implements Closeable {
+	private static final String INDEX = "index.bin";
+	private static final int RECORD_BYTES = 64; //hash 32, dim 4, fringe 4, nodes 4, unused 4, density 8, seed 8
+
+	// One maze of the corpus.
+	public static final class Entry {
+		public final String hash; //hex SHA-256 of the maze, also the name of its file
+		public final int dim;
+		public final double density; //NaN if unknown
+		public final long seed;
+		public final int fringe; //largest DFS fringe, -1 if the maze cannot be solved
+		public final int nodes; //nodes expanded by A*-Manhattan, -1 if the maze cannot be solved
+
+		Entry(String hash, int dim, double density, long seed, int fringe, int nodes) {
+			this.hash = hash;
+			this.dim = dim;
+			this.density = density;
+			this.seed = seed;
+			this.fringe = fringe;
+			this.nodes = nodes;
+		}
+
+		public int hardness(boolean usesDFS) {
+			return usesDFS ? fringe : nodes;
+		}
+	}
+
+	private final Path directory;
+	private final FileChannel index;
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private final Map<Integer, TreeSet<Entry>> byFringe = new HashMap<Integer, TreeSet<Entry>>(); //by dim, hardest first
+	private final Map<Integer, TreeSet<Entry>> byNodes = new HashMap<Integer, TreeSet<Entry>>();
+	private final Map<Integer, TreeSet<Entry>> byDensity = new HashMap<Integer, TreeSet<Entry>>(); //by dim, unknown density last
+
+	private MazeCorpus(Path directory, FileChannel index) {
+		this.directory = directory;
+		this.index = index;
+	}
+
+	// Opens the corpus in directory, creating it if it does not exist, and reads its index.
+	public static MazeCorpus open(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		FileChannel index = FileChannel.open(directory.resolve(INDEX), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		MazeCorpus corpus = new MazeCorpus(directory, index);
+		try {
+			FileLock lock = index.lock(); //so no other run is halfway through appending
+			try {
+				corpus.readIndex();
+			} finally {
+				lock.release();
+			}
+		} catch (IOException | RuntimeException e) {
+			index.close();
+			throw e;
+		}
+		return corpus;
+	}
+
+	// Reads every record of the index and drops a record cut short by a crash.
+	private void readIndex() throws IOException {
+		long records = index.size() / RECORD_BYTES;
+		ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 1024).order(ByteOrder.LITTLE_ENDIAN);
+		long position = 0;
+		for (long read = 0; read < records; ) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), (records - read) * RECORD_BYTES));
+			while (buffer.hasRemaining()) {
+				int n = index.read(buffer, position);
+				if (n < 0) {
+					throw new IOException("index of " + directory + " shrank while it was read");
+				}
+				position += n;
+			}
+			buffer.flip();
+			while (buffer.remaining() >= RECORD_BYTES) {
+				remember(readRecord(buffer));
+				read++;
+			}
+		}
+		index.truncate(records * RECORD_BYTES);
+	}
+
+	// Adds maze, generated with density from seed, unless it is already in the corpus.
+	// Returns its entry either way.
+	public synchronized Entry add(PackedMaze maze, double density, long seed) throws IOException {
+		String hash = hash(maze);
+		Entry entry = entries.get(hash);
+		if (entry != null) {
+			return entry;
+		}
+		entry = new Entry(hash, maze.dim, density, seed, HardMazeSearch.hardness(maze, true), HardMazeSearch.hardness(maze, false));
+		Path file = directory.resolve(hash + ".maze");
+		Path partial = directory.resolve(hash + ".maze.part");
+		MazeFile.write(partial, maze, density, seed);
+		Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); //the index never names a half-written maze
+		ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		writeRecord(entry, record);
+		record.flip();
+		FileLock lock = index.lock();
+		try {
+			long end = index.size(); //wherever other runs have left it
+			while (record.hasRemaining()) {
+				end += index.write(record, end);
+			}
+		} finally {
+			lock.release();
+		}
+		remember(entry);
+		return entry;
+	}
+
+	// The n hardest mazes of dimension dim by the metric (DFS fringe if usesDFS, else A*
+	// nodes expanded), hardest first. Mazes that cannot be solved are left out.
+	public List<Entry> hardest(int dim, boolean usesDFS, int n) {
+		return hardest(dim, usesDFS, n, Double.NaN, Double.NaN);
+	}
+
+	// The same, only among mazes generated with a density in [minDensity, maxDensity]. Mazes
+	// of unknown density only match when both bounds are NaN, which means any density; with one
+	// NaN bound nothing matches. A range walks the density index over the mazes inside it,
+	// keeping the n hardest in a heap.
+	public synchronized List<Entry> hardest(int dim, boolean usesDFS, int n, double minDensity, double maxDensity) {
+		List<Entry> hardest = new ArrayList<Entry>();
+		if (Double.isNaN(minDensity) && Double.isNaN(maxDensity)) {
+			TreeSet<Entry> sorted = (usesDFS ? byFringe : byNodes).get(dim);
+			if (sorted != null) {
+				for (Entry entry : sorted) {
+					if (hardest.size() == n || entry.hardness(usesDFS) < 0) {
+						break;
+					}
+					hardest.add(entry);
+				}
+			}
+			return hardest;
+		}
+		TreeSet<Entry> byDim = byDensity.get(dim);
+		if (byDim == null || n <= 0 || Double.isNaN(minDensity) || Double.isNaN(maxDensity) || minDensity > maxDensity) {
+			return hardest;
+		}
+		Comparator<Entry> order = hardestFirst(usesDFS);
+		PriorityQueue<Entry> kept = new PriorityQueue<Entry>(n, order.reversed()); //the easiest kept entry on top
+		for (Entry entry : byDim.subSet(densityProbe(minDensity, ""), true, densityProbe(maxDensity, "~"), true)) {
+			if (entry.hardness(usesDFS) < 0) {
+				continue;
+			}
+			kept.add(entry);
+			if (kept.size() > n) {
+				kept.poll();
+			}
+		}
+		hardest.addAll(kept);
+		hardest.sort(order);
+		return hardest;
+	}
+
+	public synchronized Entry get(String hash) {
+		return entries.get(hash);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	// Reads the maze of entry back from its file.
+	public PackedMaze load(Entry entry) throws IOException {
+		return MazeFile.open(directory.resolve(entry.hash + ".maze")).toPackedMaze();
+	}
+
+	@Override
+	public void close() throws IOException {
+		index.close();
+	}
+
+	// Indexes entry, unless a maze with its hash is already indexed: the first record of a maze
+	// is the one kept, as in add.
+	private void remember(Entry entry) {
+		if (entries.putIfAbsent(entry.hash, entry) != null) {
+			return;
+		}
+		byFringe.computeIfAbsent(entry.dim, dim -> new TreeSet<Entry>(hardestFirst(true))).add(entry);
+		byNodes.computeIfAbsent(entry.dim, dim -> new TreeSet<Entry>(hardestFirst(false))).add(entry);
+		byDensity.computeIfAbsent(entry.dim, dim -> new TreeSet<Entry>(BY_DENSITY)).add(entry);
+	}
+
+	// Orders entries by density, NaN last, and by hash between mazes of equal density.
+	private static final Comparator<Entry> BY_DENSITY = (a, b) -> {
+		int byDensity = Double.compare(a.density, b.density);
+		return byDensity != 0 ? byDensity : a.hash.compareTo(b.hash);
+	};
+
+	// An entry to bound a range of the density index: "" sorts before every hash and "~" after.
+	private static Entry densityProbe(double density, String hash) {
+		return new Entry(hash, 0, density, 0, 0, 0);
+	}
+
+	// Orders entries by the metric, hardest first, and by hash between mazes of equal hardness.
+	private static Comparator<Entry> hardestFirst(boolean usesDFS) {
+		return (a, b) -> {
+			int byHardness = Integer.compare(b.hardness(usesDFS), a.hardness(usesDFS));
+			return byHardness != 0 ? byHardness : a.hash.compareTo(b.hash);
+		};
+	}
+
+	// Hex SHA-256 of the cells of maze: its dim, obstacle words and fire words.
+	static String hash(PackedMaze maze) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e); //every Java platform has it
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(8 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(maze.dim);
+		for (long[] words : new long[][] {maze.blocked, maze.onFire}) {
+			for (long word : words) {
+				if (buffer.remaining() < Long.BYTES) {
+					buffer.flip();
+					digest.update(buffer);
+					buffer.clear();
+				}
+				buffer.putLong(word);
+			}
+		}
+		buffer.flip();
+		digest.update(buffer);
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+
+	private static void writeRecord(Entry entry, ByteBuffer buffer) {
+		for (int i = 0; i < 64; i += 2) {
+			buffer.put((byte) Integer.parseInt(entry.hash.substring(i, i + 2), 16));
+		}
+		buffer.putInt(entry.dim).putInt(entry.fringe).putInt(entry.nodes).putInt(0);
+		buffer.putDouble(entry.density).putLong(entry.seed);
+	}
+
+	private static Entry readRecord(ByteBuffer buffer) {
+		StringBuilder hash = new StringBuilder();
+		for (int i = 0; i < 32; i++) {
+			byte b = buffer.get();
+			hash.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		int dim = buffer.getInt(), fringe = buffer.getInt(), nodes = buffer.getInt();
+		buffer.getInt(); //unused
+		double density = buffer.getDouble();
+		long seed = buffer.getLong();
+		return new Entry(hash.toString(), dim, density, seed, fringe, nodes);
+	}
+}
@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// MazeFile stores a PackedMaze on disk in a binary format, so generated mazes (the hardest ones
+// in particular) can be kept and replayed exactly by later runs and benchmarks. The file is the
+// maze's own obstacle words after a small header, all little-endian:
+//
+//   0   magic "MAZE"
+//   4   int     format version (VERSION)
+//   8   int     dim
+//   12  int     number of cells on fire, f
+//   16  double  density p the maze was generated with (NaN if unknown)
+//   24  long    seed it was generated from (0 if unknown)
+//   32  int[f]  the cells on fire, as cell ids (row*dim + col)
+//       padding to a multiple of 8 bytes
+//       long[(dim*dim + 63) / 64]  the obstacle words, bit set if the cell is occupied
+//
+// Files are written through a FileChannel and opened by mapping them with a MappedByteBuffer:
+// open reads the header and leaves the words in the page cache, so opening even a large maze
+// costs nothing until its cells are read, and isEmpty reads a word straight from the mapping.
+// toPackedMaze copies the words out in one bulk read for the searches, which work on long[].
+public final class MazeFile {
+	public static final int VERSION = 1;
+	private static final int MAGIC = 0x455A414D; //"MAZE" read as a little-endian int
+	private static final int HEADER_BYTES = 32;
+	private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+	public final int dim;
+	public final double density;
+	public final long seed;
+	private final int[] fireCells;
+	private final LongBuffer words; //the obstacle words, straight from the mapping
+
+	private MazeFile(int dim, double density, long seed, int[] fireCells, LongBuffer words) {
+		this.dim = dim;
+		this.density = density;
+		this.seed = seed;
+		this.fireCells = fireCells;
+		this.words = words;
+	}
+
+	// Writes maze to file, replacing it, with the density and seed it was generated from.
+	public static void write(Path file, PackedMaze maze, double density, long seed) throws IOException {
+		int fires = 0;
+		for (long word : maze.onFire) {
+			fires += Long.bitCount(word);
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.max(WRITE_BUFFER_BYTES, wordsOffset(fires))).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(maze.dim).putInt(fires).putDouble(density).putLong(seed);
+		for (int w = 0; w < maze.onFire.length; w++) {
+			for (long bits = maze.onFire[w]; bits != 0; bits &= bits - 1) {
+				buffer.putInt((w << 6) + Long.numberOfTrailingZeros(bits));
+			}
+		}
+		buffer.position((int) wordsOffset(fires));
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			for (long word : maze.blocked) {
+				if (buffer.remaining() < Long.BYTES) {
+					drain(channel, buffer);
+				}
+				buffer.putLong(word);
+			}
+			drain(channel, buffer);
+		}
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	// Maps file and reads its header. The mapping stays valid after the file is closed.
+	public static MazeFile open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_BYTES) {
+				throw new IOException(file + " is too short to be a maze file");
+			}
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			map.order(ByteOrder.LITTLE_ENDIAN);
+			if (map.getInt(0) != MAGIC) {
+				throw new IOException(file + " is not a maze file");
+			}
+			int version = map.getInt(4);
+			if (version != VERSION) {
+				throw new IOException(file + " has format version " + version + ", expected " + VERSION);
+			}
+			int dim = map.getInt(8);
+			int fires = map.getInt(12);
+			long cells = (long) dim * dim;
+			if (dim <= 0 || cells > Integer.MAX_VALUE || fires < 0 || fires > cells || size < wordsOffset(fires) + (cells + 63) / 64 * Long.BYTES) {
+				throw new IOException(file + " is truncated or has a bad header");
+			}
+			int[] fireCells = new int[fires];
+			for (int i = 0; i < fires; i++) {
+				fireCells[i] = map.getInt(HEADER_BYTES + 4 * i);
+				if (fireCells[i] < 0 || fireCells[i] >= cells) {
+					throw new IOException(file + " has a cell on fire outside its " + dim + "x" + dim + " maze");
+				}
+			}
+			map.position((int) wordsOffset(fires));
+			LongBuffer words = map.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+			words.limit((int) ((cells + 63) / 64));
+			return new MazeFile(dim, map.getDouble(16), map.getLong(24), fireCells, words);
+		}
+	}
+
+	// Where the obstacle words start in a file with fires cells on fire. It is a long so that
+	// the fire count of a corrupt header cannot overflow it.
+	private static long wordsOffset(int fires) {
+		return (HEADER_BYTES + 4L * fires + 7) & ~7L;
+	}
+
+	public boolean isEmpty(int cell) {
+		return (words.get(cell >>> 6) & (1L << cell)) == 0;
+	}
+
+	public boolean isEmpty(int row, int col) {
+		return isEmpty(row * dim + col);
+	}
+
+	// The cells on fire, as cell ids.
+	public int[] fireCells() {
+		return fireCells.clone();
+	}
+
+	// The maze as a PackedMaze, with its words copied out of the mapping.
+	public PackedMaze toPackedMaze() {
+		long[] blocked = new long[words.limit()];
+		words.duplicate().get(blocked);
+		long[] onFire = new long[blocked.length];
+		for (int cell : fireCells) {
+			onFire[cell >>> 6] |= 1L << cell;
+		}
+		return new PackedMaze(dim, blocked, onFire);
+	}
+}
@@ -0,0 +1,167 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// MazeImageWriter writes a maze, a path and the fire as a PNG image without a display, with the
+// colors of MazeCanvas and scale x scale pixels per cell. The PNG is a palette image with one
+// byte per pixel, and it is written a band of rows at a time straight from the packed bits of
+// the maze: each band is classified, expanded to pixels and deflated into IDAT chunks before the
+// next one is looked at, so writing a 20000x20000 maze needs a band of memory rather than an
+// image of 400 million pixels.
+public final class MazeImageWriter {
+	// Rows of cells classified at a time, and the largest IDAT chunk written.
+	private static final int BAND_ROWS = 64;
+	private static final int CHUNK_SIZE = 1 << 16;
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+	private MazeImageWriter() {
+	}
+
+	// Writes maze with a path of cell ids (may be null) and the person at cell position (-1 for
+	// none) to out as a PNG.
+	public static void writePng(PackedMaze maze, int[] path, int position, int scale, OutputStream out) throws IOException {
+		int dim = maze.dim;
+		long width = (long) dim * scale;
+		if (width > Integer.MAX_VALUE - 1) {
+			throw new IllegalArgumentException("image of " + width + " pixels per row is too wide");
+		}
+		long[] pathBits = MazeCanvas.pathBits(maze, path);
+		DataOutputStream data = new DataOutputStream(out);
+		data.write(SIGNATURE);
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream headerData = new DataOutputStream(header);
+		headerData.writeInt((int) width);
+		headerData.writeInt((int) width);
+		headerData.write(new byte[] {8, 3, 0, 0, 0}); //8 bits per pixel, palette colors, deflate, no filter choice, no interlace
+		writeChunk(data, "IHDR", header.toByteArray(), header.size());
+		byte[] palette = new byte[MazeCanvas.PALETTE.length * 3];
+		for (int i = 0; i < MazeCanvas.PALETTE.length; i++) {
+			palette[3*i] = (byte) MazeCanvas.PALETTE[i].getRed();
+			palette[3*i+1] = (byte) MazeCanvas.PALETTE[i].getGreen();
+			palette[3*i+2] = (byte) MazeCanvas.PALETTE[i].getBlue();
+		}
+		writeChunk(data, "PLTE", palette, palette.length);
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try (DeflaterOutputStream pixels = new DeflaterOutputStream(new IdatStream(data), deflater, CHUNK_SIZE)) {
+			byte[] band = new byte[BAND_ROWS * dim];
+			byte[] row = new byte[(int) width + 1]; //a filter byte of 0 (none), then the pixels
+			for (int fromRow = 0; fromRow < dim; fromRow += BAND_ROWS) {
+				int toRow = Math.min(dim, fromRow + BAND_ROWS);
+				MazeCanvas.classify(maze, pathBits, position, fromRow, toRow, band, 0);
+				for (int r = 0; r < toRow - fromRow; r++) {
+					for (int col = 0; col < dim; col++) {
+						byte color = band[r * dim + col];
+						for (int x = 1 + col * scale; x <= (col + 1) * scale; x++) {
+							row[x] = color;
+						}
+					}
+					for (int y = 0; y < scale; y++) {
+						pixels.write(row);
+					}
+				}
+			}
+		} finally {
+			deflater.end();
+		}
+		writeChunk(data, "IEND", new byte[0], 0);
+		data.flush();
+	}
+
+	// Writes map with the path that ends at goal, back to currentPosition, as a PNG.
+	public static void writePng(PathNode[][] map, PathNode goal, PathNode currentPosition, int scale, OutputStream out) throws IOException {
+		writePng(PackedMaze.fromMap(map), pathCells(map.length, goal, currentPosition), cellOf(map.length, currentPosition), scale, out);
+	}
+
+	public static void writePng(PackedMaze maze, int[] path, int position, int scale, Path file) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+			writePng(maze, path, position, scale, out);
+		}
+	}
+
+	// The cells of the path from goal back through the prev pointers to currentPosition (or to
+	// the start if currentPosition is not on it).
+	static int[] pathCells(int dim, PathNode goal, PathNode currentPosition) {
+		int length = 0;
+		for (PathNode node = goal; node != null; node = node.prev) {
+			length++;
+			if (node == currentPosition) {
+				break;
+			}
+		}
+		int[] cells = new int[length];
+		PathNode node = goal;
+		for (int i = 0; i < length; i++, node = node.prev) {
+			cells[i] = node.row * dim + node.col;
+		}
+		return cells;
+	}
+
+	static int cellOf(int dim, PathNode node) {
+		return node == null ? -1 : node.row * dim + node.col;
+	}
+
+	private static void writeChunk(DataOutputStream out, String type, byte[] data, int length) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		out.writeInt(length);
+		out.write(typeBytes);
+		out.write(data, 0, length);
+		out.writeInt((int) crc.getValue());
+	}
+
+	// Cuts the deflated pixels into IDAT chunks of at most CHUNK_SIZE bytes.
+	private static final class IdatStream extends OutputStream {
+		private final DataOutputStream out;
+		private final byte[] buffer = new byte[CHUNK_SIZE];
+		private int size;
+
+		IdatStream(DataOutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (size == buffer.length) {
+				flushChunk();
+			}
+			buffer[size++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (size == buffer.length) {
+					flushChunk();
+				}
+				int n = Math.min(len, buffer.length - size);
+				System.arraycopy(b, off, buffer, size, n);
+				size += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		private void flushChunk() throws IOException {
+			if (size > 0) {
+				writeChunk(out, "IDAT", buffer, size);
+				size = 0;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			flushChunk(); //the PNG stream itself stays open
+		}
+	}
+}
@@ -0,0 +1,82 @@
+import java.util.SplittableRandom;
+
+// MazeRandom is the source of randomness for generating mazes, spreading fire and running
+// experiments, in place of Math.random(). It is backed by a SplittableRandom, so it is fast
+// and does not synchronize with other threads, and it remembers the seed it was created
+// from, so any maze or fire run can be regenerated exactly by creating a MazeRandom with
+// the same seed and repeating the same calls.
+//
+// A MazeRandom must only be used by one thread at a time. For parallel work, give each task
+// its own stream with forStream(seed, index) or split().
+public final class MazeRandom {
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final ThreadLocal<MazeRandom> CURRENT = ThreadLocal.withInitial(MazeRandom::new);
+
+	private final long seed;
+	private final SplittableRandom random;
+
+	public MazeRandom(long seed) {
+		this.seed = seed;
+		this.random = new SplittableRandom(seed);
+	}
+
+	// A stream with an arbitrary seed, for runs that do not need to be repeated. The seed can
+	// still be read back with seed().
+	public MazeRandom() {
+		this(new SplittableRandom().nextLong());
+	}
+
+	// The unseeded stream of the calling thread, used by the methods that do not take a
+	// MazeRandom. Each thread has its own, so they never contend.
+	public static MazeRandom current() {
+		return CURRENT.get();
+	}
+
+	// The stream number index of a run with the given seed, e.g. one per trial. Streams with
+	// different indices are independent, and the same (seed, index) always gives the same
+	// stream, no matter which thread asks for it.
+	public static MazeRandom forStream(long seed, long index) {
+		return new MazeRandom(mix(seed + index * GOLDEN_GAMMA));
+	}
+
+	// SplittableRandom steps its state by GOLDEN_GAMMA, so seeds that differ by multiples of it
+	// would give the same sequence shifted by a few draws. Scrambling the seed (the SplitMix64
+	// finalizer) makes the streams of neighboring indices unrelated.
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	// A new independent stream whose seed is drawn from this one.
+	public MazeRandom split() {
+		return new MazeRandom(random.nextLong());
+	}
+
+	public long seed() {
+		return seed;
+	}
+
+	// Uniform in [0, 1).
+	public double nextDouble() {
+		return random.nextDouble();
+	}
+
+	// Uniform in (0, 1); 0 is not an acceptable value when deciding whether a cell is occupied.
+	public double nextNonZeroDouble() {
+		double draw = random.nextDouble();
+		while (draw == 0) {
+			draw = random.nextDouble();
+		}
+		return draw;
+	}
+
+	// Uniform in [0, bound).
+	public int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	public long nextLong() {
+		return random.nextLong();
+	}
+}
@@ -0,0 +1,46 @@
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.JFrame;
+
+// MazeWindow is a window showing one MazeCanvas. Windows are kept by title, so every call to
+// printMazeSolutionGUI for the same algorithm, e.g. once per move of a fire strategy, redraws
+// the cells that changed in the window it already opened instead of opening a new one.
+public final class MazeWindow {
+	private static final Map<String, MazeWindow> windows = new HashMap<String, MazeWindow>();
+
+	private final JFrame frame;
+	private final MazeCanvas canvas;
+
+	private MazeWindow(String title, int dim) {
+		this.canvas = new MazeCanvas(dim);
+		this.frame = new JFrame(title);
+		frame.setSize(500, 500);
+		frame.add(canvas);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setVisible(true);
+	}
+
+	// The window with this title, opened for a dim x dim maze if there is none yet.
+	public static synchronized MazeWindow forTitle(String title, int dim) {
+		MazeWindow window = windows.get(title);
+		if (window == null) {
+			window = new MazeWindow(title, dim);
+			windows.put(title, window);
+		}
+		return window;
+	}
+
+	public MazeCanvas canvas() {
+		return canvas;
+	}
+
+	// Shows map with the path that ends at goal and the person at currentPosition; see
+	// MazeCanvas.show.
+	public void show(PathNode[][] map, PathNode goal, PathNode currentPosition) {
+		canvas.show(map, goal, currentPosition);
+	}
+
+	public void show(PackedMaze maze, int[] path, int position) {
+		canvas.show(maze, path, position);
+	}
+}
@@ -0,0 +1,106 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// MonteCarloEngine runs the density sweeps of the plots (a number of trials at each of a list
+// of densities p) on a ForkJoinPool. The (density, trial) pairs are numbered 0 to
+// densities*trials-1 and split in halves until each task holds a small block. Every task adds
+// its trials' counts into its own long[][] and the halves are summed when they join, so no
+// state is shared between tasks. The searches inside a trial use the SearchWorkspace of the
+// worker thread running it.
+//
+// Each trial draws its randomness from a MazeRandom stream seeded only by the run's seed and
+// the trial's index, and counts are summed as longs, so a run gives exactly the same numbers
+// regardless of how it is split or how many threads run it.
+public final class MonteCarloEngine {
+	// Work items per leaf task. Trials are short, so blocks keep the task overhead small.
+	private static final int BLOCK_SIZE = 16;
+
+	// One (density, trial) experiment. It should add its results into counts, which has one
+	// slot per counter of the sweep, and use only random for randomness.
+	public interface Trial {
+		void run(double p, MazeRandom random, long[] counts);
+	}
+
+	private final ForkJoinPool pool;
+
+	public MonteCarloEngine(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	// An engine on the common ForkJoinPool, which has one worker per available core.
+	public static MonteCarloEngine common() {
+		return new MonteCarloEngine(ForkJoinPool.commonPool());
+	}
+
+	// Runs trials trials at each density and returns the summed counts, where
+	// result[i][c] is the total of counter c over the trials at densities[i].
+	public long[][] run(double[] densities, int trials, int counters, long seed, Trial trial) {
+		return pool.invoke(new SweepTask(densities, trials, counters, seed, trial, 0, (long) densities.length * trials));
+	}
+
+	// Runs the same sweep on the calling thread. It returns the same counts as run and is
+	// kept for checking and profiling the parallel version.
+	public static long[][] runSequential(double[] densities, int trials, int counters, long seed, Trial trial) {
+		return runBlock(densities, trials, counters, seed, trial, 0, (long) densities.length * trials);
+	}
+
+	// Runs work items [from, to) one after another and returns their counts.
+	private static long[][] runBlock(double[] densities, int trials, int counters, long seed, Trial trial, long from, long to) {
+		long[][] counts = new long[densities.length][counters];
+		for (long item = from; item < to; item++) {
+			int point = (int) (item / trials);
+			trial.run(densities[point], MazeRandom.forStream(seed, item), counts[point]);
+		}
+		return counts;
+	}
+
+	// Densities from 0 in steps of step, count of them, e.g. densities(50, 0.02) for the
+	// 0, 0.02, ..., 0.98 points of mazeSolvability.
+	public static double[] densities(int count, double step) {
+		double[] densities = new double[count];
+		for (int i = 0; i < count; i++) {
+			densities[i] = step * i;
+		}
+		return densities;
+	}
+
+	private static final class SweepTask extends RecursiveTask<long[][]> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] densities;
+		private final int trials;
+		private final int counters;
+		private final long seed;
+		private final Trial trial;
+		private final long from, to; //work items [from, to)
+
+		SweepTask(double[] densities, int trials, int counters, long seed, Trial trial, long from, long to) {
+			this.densities = densities;
+			this.trials = trials;
+			this.counters = counters;
+			this.seed = seed;
+			this.trial = trial;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected long[][] compute() {
+			if (to - from > BLOCK_SIZE) {
+				long mid = (from + to) >>> 1;
+				SweepTask left = new SweepTask(densities, trials, counters, seed, trial, from, mid);
+				SweepTask right = new SweepTask(densities, trials, counters, seed, trial, mid, to);
+				left.fork();
+				long[][] counts = right.compute();
+				long[][] leftCounts = left.join();
+				for (int i = 0; i < counts.length; i++) {
+					for (int c = 0; c < counters; c++) {
+						counts[i][c] += leftCounts[i][c];
+					}
+				}
+				return counts;
+			}
+			return runBlock(densities, trials, counters, seed, trial, from, to);
+		}
+	}
+}
@@ -0,0 +1,164 @@
+// PackedMaze is a compact, immutable version of the PathNode[][] maze. Every cell is
+// addressed by a single int id (row*dim + col), and its state is kept as two bits packed
+// into long[] words: one bit for whether the cell is blocked and one for whether it is on
+// fire. A 100x100 maze therefore takes a few hundred longs instead of 10,000 PathNodes, and
+// the neighbors of a cell (id-1, id+1, id-dim, id+dim) sit in the same or nearby words.
+// Operations that "change" a maze (flipping a cell, spreading fire) return a new PackedMaze.
+public final class PackedMaze {
+	final int dim;
+	final long[] blocked; //bit is set if the cell is occupied
+	final long[] onFire; //bit is set if the cell is on fire
+
+	// The arrays are used as-is and must not be modified after construction.
+	PackedMaze(int dim, long[] blocked, long[] onFire) {
+		this.dim = dim;
+		this.blocked = blocked;
+		this.onFire = onFire;
+	}
+
+	// Same as StaticGenAndSearch.generateMap, but the result is stored as packed bits. Each
+	// cell is occupied with probability p, the start and goal are always open, and if onFire
+	// is true one random open cell (other than the start) begins on fire.
+	public static PackedMaze generate(int dim, double p, boolean onFire) {
+		return generate(dim, p, onFire, MazeRandom.current());
+	}
+
+	// generate with the randomness drawn from random, so that the same seed always gives
+	// the same maze.
+	public static PackedMaze generate(int dim, double p, boolean onFire, MazeRandom random) {
+		int cells = dim * dim;
+		long[] blocked = new long[words(cells)];
+		long[] fire = new long[words(cells)];
+		for (int cell = 0; cell < cells; cell++) {
+			if (p > random.nextNonZeroDouble()) { //probability(p <= random) == probability a cell is empty
+				blocked[cell >>> 6] |= 1L << cell;
+			}
+		}
+		blocked[0] &= ~1L; //start is reachable
+		blocked[(cells-1) >>> 6] &= ~(1L << (cells-1)); //goal is reachable
+
+		if (onFire) {
+			int cellOnFire = random.nextInt(cells);
+			while ((blocked[cellOnFire >>> 6] & (1L << cellOnFire)) != 0 || cellOnFire == 0) { //if there is an obstacle or fire starts at 0,0, recompute cell on fire
+				cellOnFire = random.nextInt(cells);
+			}
+			fire[cellOnFire >>> 6] |= 1L << cellOnFire;
+		}
+		return new PackedMaze(dim, blocked, fire);
+	}
+
+	// Packs an existing PathNode[][] maze. Only isEmpty and isOnFire are kept.
+	public static PackedMaze fromMap(PathNode[][] map) {
+		int dim = map.length;
+		long[] blocked = new long[words(dim * dim)];
+		long[] fire = new long[words(dim * dim)];
+		for (int i = 0; i < dim; i++) {
+			for (int j = 0; j < dim; j++) {
+				int cell = i * dim + j;
+				if (!map[i][j].isEmpty) {
+					blocked[cell >>> 6] |= 1L << cell;
+				}
+				if (map[i][j].isOnFire) {
+					fire[cell >>> 6] |= 1L << cell;
+				}
+			}
+		}
+		return new PackedMaze(dim, blocked, fire);
+	}
+
+	// Builds a fresh PathNode[][] maze with the same cells, for code (such as the GUI) that
+	// still works on PathNodes.
+	public PathNode[][] toMap() {
+		PathNode[][] map = new PathNode[dim][dim];
+		for (int i = 0; i < dim; i++) {
+			for (int j = 0; j < dim; j++) {
+				int cell = i * dim + j;
+				map[i][j] = new PathNode(i, j, isEmpty(cell), isOnFire(cell));
+			}
+		}
+		return map;
+	}
+
+	public int dim() {
+		return dim;
+	}
+
+	public int cellCount() {
+		return dim * dim;
+	}
+
+	public int cellId(int row, int col) {
+		return row * dim + col;
+	}
+
+	public int row(int cell) {
+		return cell / dim;
+	}
+
+	public int col(int cell) {
+		return cell % dim;
+	}
+
+	// The start is always the upper left cell and the goal the lower right cell.
+	public int start() {
+		return 0;
+	}
+
+	public int goal() {
+		return dim * dim - 1;
+	}
+
+	public boolean isEmpty(int cell) {
+		return (blocked[cell >>> 6] & (1L << cell)) == 0;
+	}
+
+	public boolean isOnFire(int cell) {
+		return (onFire[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	// Number of cells that are not occupied.
+	public int emptyCount() {
+		int occupied = 0;
+		for (long word : blocked) {
+			occupied += Long.bitCount(word);
+		}
+		return dim * dim - occupied;
+	}
+
+	// True if a person can move into the cell: it is neither occupied nor burning.
+	public boolean isOpen(int cell) {
+		return ((blocked[cell >>> 6] | onFire[cell >>> 6]) & (1L << cell)) == 0;
+	}
+
+	// Returns a copy of this maze with the occupation status of one cell set to empty.
+	public PackedMaze withEmpty(int cell, boolean empty) {
+		long[] copy = blocked.clone();
+		if (empty) {
+			copy[cell >>> 6] &= ~(1L << cell);
+		} else {
+			copy[cell >>> 6] |= 1L << cell;
+		}
+		return new PackedMaze(dim, copy, onFire);
+	}
+
+	// Returns a copy of this maze with the fire status of one cell set to onFire.
+	public PackedMaze withOnFire(int cell, boolean burning) {
+		long[] copy = onFire.clone();
+		if (burning) {
+			copy[cell >>> 6] |= 1L << cell;
+		} else {
+			copy[cell >>> 6] &= ~(1L << cell);
+		}
+		return new PackedMaze(dim, blocked, copy);
+	}
+
+	// Returns a copy of this maze with no cells on fire.
+	public PackedMaze withoutFire() {
+		return new PackedMaze(dim, blocked, new long[onFire.length]);
+	}
+
+	// Number of long words needed to hold one bit per cell.
+	static int words(int cells) {
+		return (cells + 63) >>> 6;
+	}
+}
@@ -0,0 +1,128 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// PercolationEstimator estimates how likely a maze is to be solvable at every density p at
+// once, in the style of the Newman-Ziff percolation algorithm. Whether a maze can be solved
+// does not depend on the search used, so instead of generating a maze for each p and
+// searching it, a trial gives every cell a uniform value u and opens the cells from the
+// highest u down. A cell is empty in the maze of density p exactly when p <= u (the same
+// rule as generateMap), so after opening all cells with u >= p the open cells are that maze.
+// Start and goal are tracked with union-find while cells open, and the u of the cell that
+// first joins them is the trial's threshold: the maze is solvable for every p up to it and
+// for no p above it. One trial therefore costs one sort and about dim*dim near-constant
+// unions, and gives the result for the whole curve.
+public final class PercolationEstimator {
+	private PercolationEstimator() {
+	}
+
+	// Runs one trial and returns the largest density at which its maze is solvable.
+	public static double threshold(int dim, MazeRandom random) {
+		int cells = dim * dim;
+		int start = 0, goal = cells - 1;
+		if (start == goal) {
+			return 1.0;
+		}
+		// order holds the cells other than start and goal, each keyed by its random value
+		// in the high bits and its id in the low bits, so sorting the longs sorts the cells
+		int idBits = 32 - Integer.numberOfLeadingZeros(cells);
+		int valueBits = 63 - idBits;
+		double scale = 1.0 / (1L << valueBits);
+		long[] order = new long[cells - 2];
+		for (int cell = 1; cell < goal; cell++) {
+			order[cell - 1] = (random.nextLong() >>> (idBits + 1)) << idBits | cell;
+		}
+		Arrays.sort(order);
+
+		int[] parent = new int[cells]; //parent[cell] is -(size of set) for a root, unused while closed
+		boolean[] open = new boolean[cells];
+		open(start, dim, parent, open);
+		open(goal, dim, parent, open);
+		long idMask = (1L << idBits) - 1;
+		for (int i = order.length - 1; i >= 0; i--) { //highest value first
+			int cell = (int) (order[i] & idMask);
+			open(cell, dim, parent, open);
+			if (find(parent, start) == find(parent, goal)) {
+				return (order[i] >>> idBits) * scale;
+			}
+		}
+		return 0.0; //not reached: once every cell is open, start and goal are connected
+	}
+
+	// Thresholds of trials independent trials. Trial t uses stream t of seed and the trials
+	// run in parallel, so the result depends only on dim, trials and seed.
+	public static double[] thresholds(int dim, int trials, long seed) {
+		return IntStream.range(0, trials).parallel().mapToDouble(t -> threshold(dim, MazeRandom.forStream(seed, t))).toArray();
+	}
+
+	// Fraction of the trials that are solvable at each density, i.e. whose threshold is at
+	// least that density.
+	public static double[] solvability(double[] thresholds, double[] densities) {
+		double[] sorted = thresholds.clone();
+		Arrays.sort(sorted);
+		double[] fraction = new double[densities.length];
+		for (int i = 0; i < densities.length; i++) {
+			int lo = 0, hi = sorted.length; //find the first threshold >= densities[i]
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (sorted[mid] < densities[i]) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			fraction[i] = (sorted.length - lo) / (double) sorted.length;
+		}
+		return fraction;
+	}
+
+	// Solvability curve of trials trials as a {densities, fractions} series for plotting.
+	public static double[][] curve(int dim, int trials, long seed, double[] densities) {
+		return new double[][] {densities.clone(), solvability(thresholds(dim, trials, seed), densities)};
+	}
+
+	// Opens a cell and joins it with its open neighbors.
+	private static void open(int cell, int dim, int[] parent, boolean[] open) {
+		open[cell] = true;
+		parent[cell] = -1;
+		int row = cell / dim, col = cell % dim;
+		if (row+1 < dim && open[cell+dim]) {
+			union(parent, cell, cell+dim);
+		}
+		if (col+1 < dim && open[cell+1]) {
+			union(parent, cell, cell+1);
+		}
+		if (row-1 >= 0 && open[cell-dim]) {
+			union(parent, cell, cell-dim);
+		}
+		if (col-1 >= 0 && open[cell-1]) {
+			union(parent, cell, cell-1);
+		}
+	}
+
+	// Root of the set holding cell, halving the path on the way up.
+	private static int find(int[] parent, int cell) {
+		while (parent[cell] >= 0) {
+			int up = parent[cell];
+			if (parent[up] >= 0) {
+				parent[cell] = parent[up];
+			}
+			cell = up;
+		}
+		return cell;
+	}
+
+	// Joins the sets of a and b, hanging the smaller under the larger.
+	private static void union(int[] parent, int a, int b) {
+		int rootA = find(parent, a), rootB = find(parent, b);
+		if (rootA == rootB) {
+			return;
+		}
+		if (parent[rootA] > parent[rootB]) { //sizes are negative, so A is the smaller set
+			int swap = rootA;
+			rootA = rootB;
+			rootB = swap;
+		}
+		parent[rootA] += parent[rootB];
+		parent[rootB] = rootA;
+	}
+}
@@ -0,0 +1,86 @@
+// ScanFire spreads the fire with StaticGenAndSearch.fireSpreads, which looks at every cell of
+// the maze on every step. It is kept as the reference the other engines are checked against.
+final class ScanFire implements FireEngine {
+	private final double q;
+	private final PathNode[][] mirror; //null if there is no PathNode map to update
+	private PackedMaze maze;
+	private PackedMaze previous; //the maze before the last step
+	private int burning;
+	private FireRiskMap risk; //built the first time it is asked for
+
+	ScanFire(PackedMaze maze, double q, PathNode[][] mirror) {
+		this.maze = maze;
+		this.q = q;
+		this.mirror = mirror;
+		for (long word : maze.onFire) {
+			burning += Long.bitCount(word);
+		}
+	}
+
+	@Override
+	public int step(MazeRandom rng) {
+		PackedMaze next = StaticGenAndSearch.fireSpreads(maze, q, rng);
+		int ignited = 0;
+		for (int w = 0; w < next.onFire.length; w++) {
+			long newFire = next.onFire[w] & ~maze.onFire[w];
+			ignited += Long.bitCount(newFire);
+			for (; mirror != null && newFire != 0; newFire &= newFire - 1) {
+				int cell = (w << 6) + Long.numberOfTrailingZeros(newFire);
+				mirror[cell / maze.dim][cell % maze.dim].isOnFire = true;
+			}
+		}
+		previous = maze;
+		maze = next;
+		if (risk != null) {
+			for (int cell : newFires()) {
+				risk.ignite(cell, null);
+			}
+		}
+		burning += ignited;
+		return ignited;
+	}
+
+	@Override
+	public FireRiskMap riskMap() {
+		if (risk == null) {
+			risk = new FireRiskMap(maze, q);
+		}
+		return risk;
+	}
+
+	@Override
+	public int[] newFires() {
+		return previous == null ? new int[0] : newBits(previous.onFire, maze.onFire);
+	}
+
+	// The cells whose bits are set in after but not in before.
+	static int[] newBits(long[] before, long[] after) {
+		int count = 0;
+		for (int w = 0; w < after.length; w++) {
+			count += Long.bitCount(after[w] & ~before[w]);
+		}
+		int[] cells = new int[count];
+		int i = 0;
+		for (int w = 0; w < after.length && i < count; w++) {
+			for (long bits = after[w] & ~before[w]; bits != 0; bits &= bits - 1) {
+				cells[i++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+			}
+		}
+		return cells;
+	}
+
+	@Override
+	public boolean isOnFire(int cell) {
+		return maze.isOnFire(cell);
+	}
+
+	@Override
+	public int burningCount() {
+		return burning;
+	}
+
+	@Override
+	public PackedMaze maze() {
+		return maze;
+	}
+}
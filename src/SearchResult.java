@@ -0,0 +1,93 @@
+// SearchResult holds the outcome of a single search: the goal PathNode (the head of the path
+// back to the start, or null if the maze was not solved), the number of nodes expanded, the
+// largest fringe size, the length of the path in cells and the time the search took. It
+// replaces reading StaticGenAndSearch.cellsTraversed and maxFringeSize after a search, so
+// nothing has to be zeroed by hand and searches on different threads do not interfere.
+//
+// The statistics (nodesExpanded, maxFringe, pathLength, elapsedNanos, isSolved) are final and
+// set in the constructor, so they can be read from any thread once the result is created. The
+// path is a different matter. A search of a PathNode[][] returns the live goal node of that
+// map, and resetMap or the next search of the map rewrites its prev chain, so goal() is only
+// good until then and only on the thread that owns the map. A search of a PackedMaze keeps its
+// own copy of the path as cells, and goal() builds a chain of new PathNodes from it, so such a
+// result can be shared whole.
+public final class SearchResult {
+	private final PathNode goal;
+	private final PackedMaze maze; //set by PackedMaze searches, whose path is kept in cells
+	private final int[] cells; //start to goal
+	private volatile PathNode chain; //cells as PathNodes, made by the first call of goal()
+	private final int nodesExpanded;
+	private final int maxFringe;
+	private final int pathLength;
+	private final long elapsedNanos;
+
+	public SearchResult(PathNode goal, int nodesExpanded, int maxFringe, long elapsedNanos) {
+		this.goal = goal;
+		this.maze = null;
+		this.cells = null;
+		this.nodesExpanded = nodesExpanded;
+		this.maxFringe = maxFringe;
+		this.elapsedNanos = elapsedNanos;
+		int length = 0;
+		for (PathNode node = goal; node != null; node = node.prev) {
+			length++;
+		}
+		this.pathLength = length;
+	}
+
+	// The result of a search of maze, with the cells of its path from start to goal (null if
+	// it was not solved).
+	public SearchResult(PackedMaze maze, int[] cells, int nodesExpanded, int maxFringe, long elapsedNanos) {
+		this.goal = null;
+		this.maze = maze;
+		this.cells = cells;
+		this.nodesExpanded = nodesExpanded;
+		this.maxFringe = maxFringe;
+		this.elapsedNanos = elapsedNanos;
+		this.pathLength = cells == null ? 0 : cells.length;
+	}
+
+	public PathNode goal() {
+		if (cells == null) {
+			return goal;
+		}
+		PathNode head = chain;
+		if (head == null) {
+			head = new PathNode(maze.row(cells[0]), maze.col(cells[0]), maze.isEmpty(cells[0]), maze.isOnFire(cells[0]));
+			for (int i = 1; i < cells.length; i++) {
+				PathNode node = new PathNode(maze.row(cells[i]), maze.col(cells[i]), maze.isEmpty(cells[i]), maze.isOnFire(cells[i]));
+				node.prev = head;
+				head = node;
+			}
+			chain = head; //two threads may both build it; either chain is the same path
+		}
+		return head;
+	}
+
+	public boolean isSolved() {
+		return goal != null || cells != null;
+	}
+
+	public int nodesExpanded() {
+		return nodesExpanded;
+	}
+
+	public int maxFringe() {
+		return maxFringe;
+	}
+
+	// Number of cells on the path including the start and goal, 0 if unsolved.
+	public int pathLength() {
+		return pathLength;
+	}
+
+	public long elapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchResult[solved=" + isSolved() + ", nodesExpanded=" + nodesExpanded + ", maxFringe=" + maxFringe
+				+ ", pathLength=" + pathLength + ", elapsedNanos=" + elapsedNanos + "]";
+	}
+}
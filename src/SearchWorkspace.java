@@ -0,0 +1,458 @@
+import java.util.Arrays;
+
+// SearchWorkspace holds the arrays that BFS and DFS need so that they can be reused from one
+// search to the next instead of being allocated on every call. The fringe is an int[] of cell
+// ids (row*dim + col) used as a ring buffer for BFS and as a stack for DFS, and A* uses the
+// IndexedMinHeap in heap. Visited cells are marked by writing the current search's stamp into
+// seenStamp, so starting a new search only increments the stamp rather than clearing a
+// boolean[][].
+//
+// A workspace is not thread-safe; forCurrentThread gives every thread its own.
+public final class SearchWorkspace {
+	private static final ThreadLocal<SearchWorkspace> WORKSPACES = ThreadLocal.withInitial(SearchWorkspace::new);
+
+	int[] parent = new int[0]; //parent[cell] is the cell it was reached from, -1 for the start
+	int[] child = new int[0]; //child[cell] is the cell nearer the goal, for the goal side of bidirectional BFS
+	int[] fringe = new int[0]; //queue/stack of cell ids, length is a power of two
+	int[] distance = new int[0]; //distance (# of operations) from the start, used by A*
+	final IndexedMinHeap heap = new IndexedMinHeap();
+	private int[] seenStamp = new int[0]; //seenStamp[cell] == stamp if cell has been added to the fringe
+	private int stamp = 0; //always positive, so -stamp can mark the goal side of bidirectional BFS
+
+	// Statistics of the most recent search, the same quantities as
+	// StaticGenAndSearch.cellsTraversed and maxFringeSize.
+	int nodesExpanded;
+	int maxFringe;
+
+	// Returned by expandLevel when the two sides of bidirectionalSearch meet. meetNear is then
+	// the cell being expanded and meetFar its neighbor owned by the other side.
+	private static final int MET = Integer.MIN_VALUE;
+	private int meetNear, meetFar;
+
+	public static SearchWorkspace forCurrentThread() {
+		return WORKSPACES.get();
+	}
+
+	// Makes sure the arrays can hold cells cells and starts a new search.
+	void prepare(int cells) {
+		if (seenStamp.length < cells) {
+			parent = new int[cells];
+			child = new int[cells];
+			distance = new int[cells];
+			seenStamp = new int[cells];
+			stamp = 0;
+		}
+		heap.clear(cells);
+		if (fringe.length < cells) {
+			fringe = new int[Integer.highestOneBit(Math.max(cells - 1, 1)) << 1];
+		}
+		stamp++;
+		if (stamp <= 0) { //the stamp wrapped around, old marks could collide with new ones
+			Arrays.fill(seenStamp, 0);
+			stamp = 1;
+		}
+		nodesExpanded = 0;
+		maxFringe = 0;
+	}
+
+	boolean seen(int cell) {
+		return seenStamp[cell] == stamp;
+	}
+
+	// Marks cell as added to the fringe and records where it was reached from.
+	void see(int cell, int from) {
+		seenStamp[cell] = stamp;
+		parent[cell] = from;
+	}
+
+	// BFS from the start to the goal of a PackedMaze. Returns the goal cell, or -1 if the goal
+	// cannot be reached. The path can be read back through parent.
+	public int breadthFirstSearch(PackedMaze maze) {
+		int dim = maze.dim;
+		int goal = maze.goal();
+		prepare(maze.cellCount());
+		int mask = fringe.length - 1;
+		int head = 0, tail = 0;
+		see(maze.start(), -1);
+		fringe[tail++ & mask] = maze.start();
+		maxFringe = 1;
+		while (head != tail) {
+			int curr = fringe[head++ & mask];
+			nodesExpanded++;
+			if (curr == goal) {
+				return curr;
+			}
+			int row = curr / dim, col = curr % dim;
+			if (row+1 < dim && maze.isEmpty(curr+dim) && !seen(curr+dim)) { //moving down
+				see(curr+dim, curr);
+				fringe[tail++ & mask] = curr+dim;
+			}
+			if (col+1 < dim && maze.isEmpty(curr+1) && !seen(curr+1)) { //moving right
+				see(curr+1, curr);
+				fringe[tail++ & mask] = curr+1;
+			}
+			if (row-1 >= 0 && maze.isEmpty(curr-dim) && !seen(curr-dim)) { //moving up
+				see(curr-dim, curr);
+				fringe[tail++ & mask] = curr-dim;
+			}
+			if (col-1 >= 0 && maze.isEmpty(curr-1) && !seen(curr-1)) { //moving left
+				see(curr-1, curr);
+				fringe[tail++ & mask] = curr-1;
+			}
+			maxFringe = Math.max(maxFringe, tail - head);
+		}
+		return -1;
+	}
+
+	// DFS from the start to the goal of a PackedMaze. Neighbors are pushed in the order up,
+	// left, down, right, as in DepthFirstSearch(PathNode[][]). Returns the goal cell or -1.
+	public int depthFirstSearch(PackedMaze maze) {
+		int dim = maze.dim;
+		int goal = maze.goal();
+		prepare(maze.cellCount());
+		int size = 0;
+		see(maze.start(), -1);
+		fringe[size++] = maze.start();
+		maxFringe = 1;
+		while (size > 0) {
+			nodesExpanded++;
+			int curr = fringe[--size];
+			if (curr == goal) {
+				return curr;
+			}
+			int row = curr / dim, col = curr % dim;
+			if (row-1 >= 0 && maze.isEmpty(curr-dim) && !seen(curr-dim)) { //moving up
+				see(curr-dim, curr);
+				fringe[size++] = curr-dim;
+			}
+			if (col-1 >= 0 && maze.isEmpty(curr-1) && !seen(curr-1)) { //moving left
+				see(curr-1, curr);
+				fringe[size++] = curr-1;
+			}
+			if (row+1 < dim && maze.isEmpty(curr+dim) && !seen(curr+dim)) { //moving down
+				see(curr+dim, curr);
+				fringe[size++] = curr+dim;
+			}
+			if (col+1 < dim && maze.isEmpty(curr+1) && !seen(curr+1)) { //moving right
+				see(curr+1, curr);
+				fringe[size++] = curr+1;
+			}
+			maxFringe = Math.max(maxFringe, size);
+		}
+		return -1;
+	}
+
+	// Bidirectional BFS between the start and goal of a PackedMaze. The two searches advance a
+	// whole level at a time, each time on the side whose frontier is smaller, so neither side
+	// floods open space far ahead of the other. Ownership is one shared int per cell:
+	// seenStamp[cell] is stamp once the start side reaches it and -stamp once the goal side
+	// does, so noticing that the searches have met is a single comparison. Both frontiers live
+	// in fringe, the start side growing up from index 0 and the goal side down from the end; a
+	// cell joins at most one of them, so they never overlap.
+	//
+	// The first edge found between the two sides completes a shortest path, since every cell
+	// closer to either end has already been labeled. The goal side's branch is then folded into
+	// parent, so the path reads back from the goal through parent as it does after BFS, and the
+	// goal is returned; -1 if the goal cannot be reached. The maze is not modified. Every cell
+	// expanded counts once in nodesExpanded, and maxFringe is the largest combined size of the
+	// two frontiers.
+	public int bidirectionalSearch(PackedMaze maze) {
+		int cells = maze.cellCount();
+		int start = maze.start(), goal = maze.goal();
+		prepare(cells);
+		see(start, -1);
+		maxFringe = 1;
+		if (start == goal) {
+			nodesExpanded = 1;
+			return goal;
+		}
+		seenStamp[goal] = -stamp;
+		child[goal] = -1;
+		int startHead = 0, startTail = 0; //start frontier is fringe[startHead..startTail)
+		int goalHead = cells - 1, goalTail = cells - 1; //goal frontier is fringe(goalTail..goalHead]
+		fringe[startTail++] = start;
+		fringe[goalTail--] = goal;
+		maxFringe = 2;
+		while (startHead < startTail && goalTail < goalHead) {
+			if (startTail - startHead <= goalHead - goalTail) {
+				int levelEnd = startTail;
+				startTail = expandLevel(maze, startHead, levelEnd, startTail, 1, stamp, parent);
+				if (startTail == MET) {
+					return joinAt(meetNear, meetFar);
+				}
+				startHead = levelEnd;
+			} else {
+				int levelEnd = goalTail;
+				goalTail = expandLevel(maze, goalHead, levelEnd, goalTail, -1, -stamp, child);
+				if (goalTail == MET) {
+					return joinAt(meetFar, meetNear);
+				}
+				goalHead = levelEnd;
+			}
+			maxFringe = Math.max(maxFringe, (startTail - startHead) + (goalHead - goalTail));
+		}
+		return -1;
+	}
+
+	// Expands one level of one side of bidirectionalSearch: the cells fringe[head], fringe[head+step],
+	// ... up to but not including levelEnd. New cells are written at tail, which moves by step, and
+	// are marked with mark (stamp or -stamp) and linked to the cell they came from in links.
+	// Returns the new tail, or MET.
+	private int expandLevel(PackedMaze maze, int head, int levelEnd, int tail, int step, int mark, int[] links) {
+		int dim = maze.dim;
+		for (int i = head; i != levelEnd; i += step) {
+			int curr = fringe[i];
+			nodesExpanded++;
+			int row = curr / dim, col = curr % dim;
+			if (row+1 < dim && maze.isEmpty(curr+dim) && (tail = visit(curr, curr+dim, tail, step, mark, links)) == MET) { //moving down
+				return MET;
+			}
+			if (col+1 < dim && maze.isEmpty(curr+1) && (tail = visit(curr, curr+1, tail, step, mark, links)) == MET) { //moving right
+				return MET;
+			}
+			if (row-1 >= 0 && maze.isEmpty(curr-dim) && (tail = visit(curr, curr-dim, tail, step, mark, links)) == MET) { //moving up
+				return MET;
+			}
+			if (col-1 >= 0 && maze.isEmpty(curr-1) && (tail = visit(curr, curr-1, tail, step, mark, links)) == MET) { //moving left
+				return MET;
+			}
+		}
+		return tail;
+	}
+
+	// Adds the empty cell next, reached from curr, to the frontier of the side marked mark,
+	// unless that side already has it. Returns the new tail, or MET if the other side has it.
+	private int visit(int curr, int next, int tail, int step, int mark, int[] links) {
+		int owner = seenStamp[next];
+		if (owner == mark) {
+			return tail;
+		}
+		if (owner == -mark) {
+			meetNear = curr;
+			meetFar = next;
+			return MET;
+		}
+		seenStamp[next] = mark;
+		links[next] = curr;
+		fringe[tail] = next;
+		return tail + step;
+	}
+
+	// Joins the branches of bidirectionalSearch across the edge from fromStart (start side) to
+	// fromGoal (goal side) by pointing the goal side's cells back toward the start in parent.
+	private int joinAt(int fromStart, int fromGoal) {
+		int prev = fromStart;
+		for (int cell = fromGoal; cell != -1; ) {
+			int next = child[cell];
+			parent[cell] = prev;
+			prev = cell;
+			cell = next;
+		}
+		return prev;
+	}
+
+	// BFS on a PathNode[][] map with the same fringe and visited rules as the LinkedList
+	// version it replaces: a neighbor is added if it is empty, has no prev pointer yet and
+	// has not been visited. prev pointers are set on the PathNodes as before, so the map
+	// still needs resetMap between searches. Returns the goal PathNode or null.
+	public PathNode breadthFirstSearch(PathNode[][] map) {
+		int dim = map.length;
+		int goal = dim * dim - 1;
+		prepare(dim * dim);
+		int mask = fringe.length - 1;
+		int head = 0, tail = 0;
+		map[0][0].prev = null; //start has no predecessor
+		fringe[tail++ & mask] = 0;
+		maxFringe = 1;
+		while (head != tail) {
+			int curr = fringe[head++ & mask];
+			seenStamp[curr] = stamp; //mark node as visited
+			nodesExpanded++;
+			if (curr == goal) { //curr is the goal state
+				return map[dim-1][dim-1];
+			}
+			int row = curr / dim, col = curr % dim;
+			PathNode node = map[row][col];
+			if (row+1 < dim && addToFringe(map[row+1][col], curr+dim, node)) { //moving down
+				fringe[tail++ & mask] = curr+dim;
+			}
+			if (col+1 < dim && addToFringe(map[row][col+1], curr+1, node)) { //moving right
+				fringe[tail++ & mask] = curr+1;
+			}
+			if (row-1 >= 0 && addToFringe(map[row-1][col], curr-dim, node)) { //moving up
+				fringe[tail++ & mask] = curr-dim;
+			}
+			if (col-1 >= 0 && addToFringe(map[row][col-1], curr-1, node)) { //moving left
+				fringe[tail++ & mask] = curr-1;
+			}
+			maxFringe = Math.max(maxFringe, tail - head);
+		}
+		return null;
+	}
+
+	// DFS on a PathNode[][] map with the same fringe and visited rules. Returns the goal
+	// PathNode or null.
+	public PathNode depthFirstSearch(PathNode[][] map) {
+		int dim = map.length;
+		int goal = dim * dim - 1;
+		prepare(dim * dim);
+		int size = 0;
+		map[0][0].prev = null; //start has no predecessor
+		fringe[size++] = 0;
+		maxFringe = 1;
+		while (size > 0) {
+			nodesExpanded++;
+			int curr = fringe[--size];
+			seenStamp[curr] = stamp; //mark node as visited
+			if (curr == goal) { //curr is the goal state
+				return map[dim-1][dim-1];
+			}
+			int row = curr / dim, col = curr % dim;
+			PathNode node = map[row][col];
+			if (row-1 >= 0 && addToFringe(map[row-1][col], curr-dim, node)) { //moving up
+				fringe[size++] = curr-dim;
+			}
+			if (col-1 >= 0 && addToFringe(map[row][col-1], curr-1, node)) { //moving left
+				fringe[size++] = curr-1;
+			}
+			if (row+1 < dim && addToFringe(map[row+1][col], curr+dim, node)) { //moving down
+				fringe[size++] = curr+dim;
+			}
+			if (col+1 < dim && addToFringe(map[row][col+1], curr+1, node)) { //moving right
+				fringe[size++] = curr+1;
+			}
+			maxFringe = Math.max(maxFringe, size);
+		}
+		return null;
+	}
+
+	// Shared fringe rule of BFS and DFS on PathNodes: neighbor is a non-repeated, viable
+	// choice if it is empty, not already on the fringe (prev == null) and not visited. If so,
+	// its prev pointer is set to curr.
+	private boolean addToFringe(PathNode neighbor, int cell, PathNode curr) {
+		if (neighbor.isEmpty && neighbor.prev == null && !seen(cell)) {
+			neighbor.prev = curr;
+			return true;
+		}
+		return false;
+	}
+
+	// A* from start to goal on a PackedMaze, with the Euclidean or Manhattan distance to the goal
+	// as the heuristic. Cells that are occupied or on fire are never entered. A cell already on
+	// the fringe that is reached by a shorter route has its parent and priority updated in
+	// place (decrease-key). Returns goal or -1.
+	public int aStar(PackedMaze maze, int start, int goal, boolean usesEuclidean) {
+		int dim = maze.dim;
+		int goalRow = goal / dim, goalCol = goal % dim;
+		prepare(maze.cellCount());
+		see(start, -1);
+		distance[start] = 0;
+		heap.insert(start, 0);
+		maxFringe = 1;
+		while (!heap.isEmpty()) {
+			int curr = heap.poll();
+			nodesExpanded++;
+			if (curr == goal) {
+				maxFringe = Math.max(maxFringe, heap.size());
+				return curr;
+			}
+			int row = curr / dim, col = curr % dim;
+			if (row+1 < dim) relax(maze, curr, curr+dim, goalRow, goalCol, usesEuclidean); //down
+			if (col+1 < dim) relax(maze, curr, curr+1, goalRow, goalCol, usesEuclidean); //right
+			if (row-1 >= 0) relax(maze, curr, curr-dim, goalRow, goalCol, usesEuclidean); //up
+			if (col-1 >= 0) relax(maze, curr, curr-1, goalRow, goalCol, usesEuclidean); //left
+			maxFringe = Math.max(maxFringe, heap.size());
+		}
+		return -1;
+	}
+
+	private void relax(PackedMaze maze, int curr, int next, int goalRow, int goalCol, boolean usesEuclidean) {
+		if (!maze.isOpen(next)) {
+			return;
+		}
+		int dist = distance[curr] + 1; //distance to child = distance to parent + one additional operation
+		if (!seen(next)) {
+			see(next, curr);
+			distance[next] = dist;
+			heap.insert(next, dist + StaticGenAndSearch.heuristic(next / maze.dim, next % maze.dim, goalRow, goalCol, usesEuclidean));
+		} else if (heap.contains(next) && dist < distance[next]) { //shorter route to a node on the fringe
+			parent[next] = curr;
+			distance[next] = dist;
+			heap.decreaseKey(next, dist + StaticGenAndSearch.heuristic(next / maze.dim, next % maze.dim, goalRow, goalCol, usesEuclidean));
+		}
+	}
+
+	// A* on a PathNode[][] map from start to goal, shared by AStar, AStarForFire and AStarPredict.
+	// A neighbor is added if it is empty, not on fire, not visited and has no prev pointer yet,
+	// and its prev and distanceEst are set as before. If probabilities is null the heuristic is
+	// the Euclidean or Manhattan distance to the goal; otherwise it is the predictive heuristic
+	// of strategy 3 (see predictiveEstimate). Returns goal or null.
+	public PathNode aStar(PathNode[][] map, PathNode start, PathNode goal, boolean usesEuclidean, double[][] probabilities) {
+		int dim = map.length;
+		prepare(dim * dim);
+		int startCell = start.row * dim + start.col;
+		distance[startCell] = 0;
+		start.prev = null;
+		start.distanceEst = 0;
+		heap.insert(startCell, 0);
+		maxFringe = 1;
+		while (!heap.isEmpty()) {
+			int curr = heap.poll();
+			seenStamp[curr] = stamp; //mark node as visited
+			nodesExpanded++;
+			int row = curr / dim, col = curr % dim;
+			PathNode node = map[row][col];
+			if (node == goal) {
+				maxFringe = Math.max(maxFringe, heap.size());
+				return node;
+			}
+			if (row+1 < dim) relax(map, node, curr, row+1, col, goal, usesEuclidean, probabilities); //down
+			if (col+1 < dim) relax(map, node, curr, row, col+1, goal, usesEuclidean, probabilities); //right
+			if (row-1 >= 0) relax(map, node, curr, row-1, col, goal, usesEuclidean, probabilities); //up
+			if (col-1 >= 0) relax(map, node, curr, row, col-1, goal, usesEuclidean, probabilities); //left
+			maxFringe = Math.max(maxFringe, heap.size());
+		}
+		return null;
+	}
+
+	private void relax(PathNode[][] map, PathNode curr, int currCell, int row, int col, PathNode goal, boolean usesEuclidean, double[][] probabilities) {
+		PathNode next = map[row][col];
+		int cell = row * map.length + col;
+		if (!next.isEmpty || next.isOnFire || seen(cell)) {
+			return;
+		}
+		int dist = distance[currCell] + 1; //distance to child = distance to parent + one additional operation
+		if (heap.contains(cell)) {
+			if (dist < distance[cell]) { //shorter route to a node on the fringe
+				next.prev = curr;
+				distance[cell] = dist;
+				next.distanceEst = dist + estimate(map.length, row, col, goal, usesEuclidean, probabilities);
+				heap.decreaseKey(cell, next.distanceEst);
+			}
+		} else if (next.prev == null) {
+			next.prev = curr;
+			distance[cell] = dist;
+			next.distanceEst = dist + estimate(map.length, row, col, goal, usesEuclidean, probabilities);
+			heap.insert(cell, next.distanceEst);
+		}
+	}
+
+	private static double estimate(int dim, int row, int col, PathNode goal, boolean usesEuclidean, double[][] probabilities) {
+		if (probabilities == null) {
+			return StaticGenAndSearch.heuristic(row, col, goal.row, goal.col, usesEuclidean);
+		}
+		return predictiveEstimate(dim, row, col, goal, probabilities[row][col]);
+	}
+
+	// The heuristic of strategy 3: (1+risk)*euclidDist, capped at the Manhattan distance to the
+	// goal. Nodes with no risk of fire in the next step are compared by their Euclidean
+	// distances, risky nodes look further away, and the cap keeps the estimate an underestimate.
+	static double predictiveEstimate(int dim, int row, int col, PathNode goal, double risk) {
+		double euclDis = StaticGenAndSearch.heuristic(row, col, dim-1, dim-1, true);
+		double manDis = StaticGenAndSearch.heuristic(row, col, goal.row, goal.col, false);
+		if (euclDis * risk + euclDis < manDis) {
+			return euclDis * risk + euclDis;
+		}
+		return manDis;
+	}
+}
@@ -1,9 +1,7 @@
 import java.util.Arrays;
 import java.util.LinkedList;
-import java.util.PriorityQueue;
-import java.util.LinkedHashSet;
 import java.util.HashMap;
-import javax.swing.*;
+import java.util.Queue;
 import java.awt.*;
 import org.jfree.chart.*;
 import org.jfree.chart.plot.PlotOrientation;
@@ -15,23 +13,39 @@ import org.jfree.ui.RefineryUtilities;
 public class StaticGenAndSearch {
 	// Global Variables. cellsTraversed keeps track of the number of nodes explored/visited
 	// when an algorithm ran. maxFringeSize keeps track of the largest fringe size during an
-	// algorithm's execution.
+	// algorithm's execution. Only the methods that return a PathNode add to these; the
+	// search* methods return the same numbers in a SearchResult and leave them untouched,
+	// so those are the ones to use when searches run on several threads.
 	static int cellsTraversed = 0;
 	static int maxFringeSize = 0;
 	
+	// Run settings. When headless is true, printMazeSolutionGUI opens no windows, so the
+	// experiments can run on machines without a display. When verbose is false, the progress
+	// printed for every data point and trial (through log) is skipped. BatchRunner turns
+	// both off. When records is set, the experiments send a TrialRecord of every trial to it
+	// (through record). When fireFailures is set, the fire experiments add every run of a
+	// strategy that did not escape to it, so the run can be replayed afterwards.
+	static boolean headless = GraphicsEnvironment.isHeadless();
+	static boolean verbose = true;
+	static AsyncRecordSink records = null;
+	static Queue<FireStrategyEvaluator.Failure> fireFailures = null;
+	
 	// CODE PART 0: Map/maze utility methods ///
 	
 	// generateMap takes in a dimension, density p, and boolean flag onFire to create a 
 	// maze of the specified dimension where cells have probability p of being occupied.
 	// If onFire is true, then one random cell in the map will be on fire when initialized.
 	public static PathNode[][] generateMap (int dim, double p, boolean onFire){
+		return generateMap(dim, p, onFire, MazeRandom.current());
+	}
+	
+	// generateMap with the randomness drawn from rng, so that the same seed always gives the
+	// same maze.
+	public static PathNode[][] generateMap (int dim, double p, boolean onFire, MazeRandom rng){
 		PathNode[][] map = new PathNode[dim][dim];
 		for (int i = 0; i < dim; i++) {
 			for (int j = 0; j < dim; j++) {
-				double random = Math.random();
-				while (random == 0) { //0 is not an acceptable value, assign a new #
-					random = Math.random();
-				}
+				double random = rng.nextNonZeroDouble(); //0 is not an acceptable value
 				map[i][j] = new PathNode(i, j, p <= random, false); //probability(p <= random) == probability a cell is empty	
 			}
 		}
@@ -39,11 +53,11 @@ public class StaticGenAndSearch {
 		map[dim-1][dim-1].isEmpty = true; //goal is reachable
 		
 		if (onFire) { //start or goal begin on fire?
-			int rowOnFire = (int) (Math.random() * dim); //random() does not include 1
-			int colOnFire = (int) (Math.random() * dim);
+			int rowOnFire = rng.nextInt(dim);
+			int colOnFire = rng.nextInt(dim);
 			while (!map[rowOnFire][colOnFire].isEmpty || rowOnFire == 0 && colOnFire == 0) { //if there is an obstacle or fire starts at 0,0, recompute cell on fire
-				rowOnFire = (int) (Math.random() * dim);
-				colOnFire = (int) (Math.random() * dim);
+				rowOnFire = rng.nextInt(dim);
+				colOnFire = rng.nextInt(dim);
 			}
 			map[rowOnFire][colOnFire].isOnFire = true;
 		}
@@ -65,58 +79,32 @@ public class StaticGenAndSearch {
 	// in the maze will be drawn from PathNode current to PathNode goal. The color key
 	// of the different squares in the maze is explained below.
 	//currentPosition refers to the location of the player through the maze in adversarial searches
-	//black = maze obstacle, white = open spaces in maze, light gray = shortest path 
+	//black = maze obstacle, white = open spaces in maze, blue = shortest path, green = person
 	//orange = fire, red = fire intersects with shortest path, magenta = person burns
+	// The maze is drawn as a single image (see MazeCanvas), and later calls for the same
+	// algorithm and dim redraw the same window, so a fire run is animated in one window.
 	public static void printMazeSolutionGUI(PathNode [][] map, PathNode goal, PathNode currentPosition, String algorithm) {
-		JFrame maze = new JFrame("Maze with Dim = " + map.length + " Solved by " + algorithm);
-		maze.setSize(500, 500);
-		maze.setLayout(new GridLayout(map.length, map.length));
-		JPanel cells[][] = new JPanel[map.length][map.length];
-		
-		for (int i = 0; i < map.length; i++) {
-			for (int j = 0; j < map.length; j++) {
-				cells[i][j] = new JPanel();
-				cells[i][j].setBorder(BorderFactory.createLineBorder(Color.black));
-				if (map[i][j].isEmpty && !map[i][j].isOnFire) {
-					cells[i][j].setBackground(Color.white);
-				} else if (!map[i][j].isEmpty) {
-					cells[i][j].setBackground(Color.black);
-				}
-				else if (map[i][j].isOnFire) {
-					cells[i][j].setBackground(Color.orange);
-				}
-				maze.add(cells[i][j]);
-			}
+		if (headless) {
+			return;
 		}
-		
-		JLabel startLabel = new JLabel("S");
-		JLabel goalLabel = new JLabel("G");
-		startLabel.setFont(new Font("Times New Roman", 1, 6));
-		goalLabel.setFont(new Font("Times New Roman", 1, 6));
-		cells[0][0].setLayout(new GridBagLayout());
-		cells[0][0].add(startLabel);
-		cells[map.length-1][map.length-1].setLayout(new GridBagLayout());
-		cells[map.length-1][map.length-1].add(goalLabel);
-		
-		LinkedList <PathNode> path = generateSolvedPath (goal, currentPosition);
-		for (int i = 0; i < path.size(); i++) {
-			PathNode current = path.get(i);
-			if (current == currentPosition && current.isOnFire) {
-				cells[current.row][current.col].setBackground(Color.MAGENTA);
-			}
-			else if (current == currentPosition) {
-				cells[current.row][current.col].setBackground(Color.green);
-			}
-			else if (current.isOnFire) {
-				cells[current.row][current.col].setBackground(Color.RED);
-			} 
-			else {
-				cells[current.row][current.col].setBackground(Color.BLUE);
-			}
+		MazeWindow.forTitle("Maze with Dim = " + map.length + " Solved by " + algorithm, map.length).show(map, goal, currentPosition);
+	}
+
+	// Prints a progress message of the experiments, unless verbose is off.
+	static void log(String message) {
+		if (verbose) {
+			System.out.println(message);
 		}
-		
-		maze.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		maze.setVisible(true);
+	}
+
+	// Sends the record of one search of an experiment's trial to records, if it is set.
+	// random is the trial's stream, whose seed draws the trial's maze again.
+	static SearchResult record(String algorithm, int dim, double p, MazeRandom random, SearchResult result) {
+		AsyncRecordSink sink = records;
+		if (sink != null) {
+			sink.accept(TrialRecord.of(algorithm, dim, p, random.seed(), result));
+		}
+		return result;
 	}
 
 	// CODE PART 1: Search Algorithms on Static Mazes ///
@@ -125,397 +113,250 @@ public class StaticGenAndSearch {
 	// goal node, which is now the head of a linked list leading back to the start node
 	// of the map. In addition, it also manipulates cellsTraversed and maxFringeSize
 	// to provide information on the number of nodes it has expanded and the largest
-	// size of its fringe.
+	// size of its fringe. Code that runs searches on several threads should call
+	// searchBFS instead, which returns those numbers in a SearchResult.
 	public static PathNode BreadthFirstSearch(PathNode[][] map) {
-		if (map == null || map[0] == null || map[0].length == 0) return null;
-		map[0][0].prev = null; //start has no predecessor 
-		LinkedList<PathNode> fringe = new LinkedList<PathNode>();
-		boolean [][] visited = new boolean[map.length][map.length];
-		for (int i = 0; i < visited.length; i++) {
-			for (int j = 0; j < visited.length; j++) {
-				visited[i][j] = false;
-			}
-		}
-		fringe.add(map[0][0]);
-		maxFringeSize = Math.max(maxFringeSize, fringe.size());
-		while (!fringe.isEmpty()) {
-			PathNode curr = fringe.getFirst();
-			fringe.remove(); //removes first element from list
-			visited[curr.row][curr.col] = true; //mark node as visited
-			cellsTraversed++;
-			if (curr.equals(map[map.length-1][map.length-1])) { //curr is the goal state
-				return curr;
-			}else{
-				fringe = updateFringe(fringe, map, curr, visited); //updates fringe
-				maxFringeSize = Math.max(maxFringeSize, fringe.size());
-			}
-		}
-		return null;
-	}
-
-	// updateFringe is a helper method for BreadthFirstSearch that considers all valid
-	// neighbors of a PathNode in the map and adds them to the fringe for future exploration.
-	// In addition, the prev pointer of the neighbor PathNode is set to the current PathNode
-	// so that it will form a linked list going from goal to start by the end of the search.
-	public static LinkedList<PathNode> updateFringe(LinkedList<PathNode> fringe, PathNode[][] map, PathNode curr, boolean[][] visited){
-		int rowIndex = curr.row;
-		int colIndex = curr.col;
-		if (rowIndex+1 < map.length && map[rowIndex+1][colIndex].isEmpty && map[rowIndex+1][colIndex].prev == null && !visited[rowIndex+1][colIndex]) { //moving down is a non-repeated, viable choice (node not already in fringe or visited)
-			map[rowIndex+1][colIndex].prev = curr;
-			fringe.add(map[rowIndex+1][colIndex]);
-		}
-		if (colIndex+1 < map.length && map[rowIndex][colIndex+1].isEmpty && map[rowIndex][colIndex+1].prev == null && !visited[rowIndex][colIndex+1]) { //moving right is a non-repeated, viable choice
-			map[rowIndex][colIndex+1].prev = curr;
-			fringe.add(map[rowIndex][colIndex+1]);
-		}
-		if (rowIndex-1 >= 0 && map[rowIndex-1][colIndex].isEmpty && map[rowIndex-1][colIndex].prev == null && !visited[rowIndex-1][colIndex]) { //moving up is a non-repeated, viable choice
-			map[rowIndex-1][colIndex].prev = curr;
-			fringe.add(map[rowIndex-1][colIndex]);
-		}
-		if (colIndex-1 >= 0 && map[rowIndex][colIndex-1].isEmpty && map[rowIndex][colIndex-1].prev == null && !visited[rowIndex][colIndex-1]) { //moving left is a non-repeated, viable choice
-			map[rowIndex][colIndex-1].prev = curr;
-			fringe.add(map[rowIndex][colIndex-1]);
-		}
-		return fringe;
+		return addToTotals(searchBFS(map));
 	}
 
-	// DepthFirstSearch implements DFS on an input map. Its fringe is a LinkedList, but
-	// items are inserted/accessed from it in a manner such that its behavior approximates
-	// a stack. Like BreadthFirstSearch, it also tracks its max fringe size and cells 
-	// traversed by manipulating the same global variables.
+	// searchBFS performs BFS on an input map and returns the goal and statistics of the
+	// search as a SearchResult. The fringe and visited marks live in the calling thread's
+	// SearchWorkspace, so repeated searches do not allocate.
+	public static SearchResult searchBFS(PathNode[][] map) {
+		long startTime = System.nanoTime();
+		if (map == null || map[0] == null || map[0].length == 0) return new SearchResult(null, 0, 0, 0);
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		PathNode goal = workspace.breadthFirstSearch(map);
+		return new SearchResult(goal, workspace.nodesExpanded, workspace.maxFringe, System.nanoTime() - startTime);
+	}
+
+	// DepthFirstSearch implements DFS on an input map. Like BreadthFirstSearch, it also tracks
+	// its max fringe size and cells traversed by manipulating the same global variables.
 	public static PathNode DepthFirstSearch(PathNode[][] map) {
-		if (map == null || map[0] == null || map[0].length == 0) return null;
-		map[0][0].prev = null; //start has no predecessor 
-		LinkedList<PathNode> fringe = new LinkedList<PathNode>();
-		boolean [][] visited = new boolean[map.length][map.length];
-		for (int i = 0; i < visited.length; i++) {
-			for (int j = 0; j < visited.length; j++) {
-				visited[i][j] = false;
-			}
-		}
-		fringe.add(map[0][0]);
-		maxFringeSize = Math.max(maxFringeSize, fringe.size());
-		while (!fringe.isEmpty()) {
-			cellsTraversed++;
-			PathNode curr = fringe.getLast();
-			fringe.removeLast();
-			visited[curr.row][curr.col] = true; //mark node as visited
-			if (curr.equals(map[map.length-1][map.length-1])) { //curr is the goal state
-				return curr;
-			}else{
-				fringe = updateFringeForDFS(fringe, map, curr, visited); //updates fringe
-				maxFringeSize = Math.max(maxFringeSize, fringe.size());
-			}
-		}
-		return null;
+		return addToTotals(searchDFS(map));
 	}
 
-	// Helper method for DepthFirstSearch that adds neighbors to the fringe in the order up, left,
-	// down, and right. This ensures optimal performance for DFS.
-	public static LinkedList<PathNode> updateFringeForDFS(LinkedList<PathNode> fringe, PathNode[][] map, PathNode curr, boolean[][] visited){
-		int rowIndex = curr.row;
-		int colIndex = curr.col;
-		if (rowIndex-1 >= 0 && map[rowIndex-1][colIndex].isEmpty && map[rowIndex-1][colIndex].prev == null && !visited[rowIndex-1][colIndex]) { //moving up is a non-repeated, viable choice
-			map[rowIndex-1][colIndex].prev = curr;
-			fringe.add(map[rowIndex-1][colIndex]);
-		}
-		if (colIndex-1 >= 0 && map[rowIndex][colIndex-1].isEmpty && map[rowIndex][colIndex-1].prev == null && !visited[rowIndex][colIndex-1]) { //moving left is a non-repeated, viable choice
-			map[rowIndex][colIndex-1].prev = curr;
-			fringe.add(map[rowIndex][colIndex-1]);
-		}
-		if (rowIndex+1 < map.length && map[rowIndex+1][colIndex].isEmpty && map[rowIndex+1][colIndex].prev == null && !visited[rowIndex+1][colIndex]) { //moving down is a non-repeated, viable choice (node not already in fringe or visited)
-			map[rowIndex+1][colIndex].prev = curr;
-			fringe.add(map[rowIndex+1][colIndex]);
-		}
-		if (colIndex+1 < map.length && map[rowIndex][colIndex+1].isEmpty && map[rowIndex][colIndex+1].prev == null && !visited[rowIndex][colIndex+1]) { //moving right is a non-repeated, viable choice
-			map[rowIndex][colIndex+1].prev = curr;
-			fringe.add(map[rowIndex][colIndex+1]);
-		}
-		return fringe;
+	// searchDFS implements DFS on an input map and returns a SearchResult. Its fringe is a
+	// stack of cell ids in the thread's SearchWorkspace, and neighbors are pushed in the order
+	// up, left, down and right, which ensures optimal performance for DFS.
+	public static SearchResult searchDFS(PathNode[][] map) {
+		long startTime = System.nanoTime();
+		if (map == null || map[0] == null || map[0].length == 0) return new SearchResult(null, 0, 0, 0);
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		PathNode goal = workspace.depthFirstSearch(map);
+		return new SearchResult(goal, workspace.nodesExpanded, workspace.maxFringe, System.nanoTime() - startTime);
 	}
 
 	// AStar is our implementation of AStar on static mazes. The usesEuclidean flag differentiates
 	// between using the Euclidean or Manhattan distance as the heuristic to guide the search.
+	// It adds its statistics to cellsTraversed and maxFringeSize; see searchAStar.
 	public static PathNode AStar(PathNode[][]map, boolean usesEuclidean) {
-		if (map == null || map[0] == null || map[0].length == 0) return null;  //map isn't constructed in a valid way
-		boolean[][] visited = new boolean[map.length][map.length];
-		int[][]distance = new int[map.length][map.length]; //distance (# of operations) from start to PathNode at distance[i][j]
-		for (int i = 0; i < visited.length; i++) {
-			for (int j = 0; j < visited.length; j++) {
-				visited[i][j] = false;
-				distance[i][j] = -1;
-			}
-		}
-		distance[0][0] = 0;
-		PriorityQueue<PathNode> fringe = new PriorityQueue<PathNode>();
-		fringe.add(map[0][0]);
-		maxFringeSize = Math.max(maxFringeSize, fringe.size());
-		map[0][0].prev = null;
-		map[0][0].distanceEst = 0;
-		while (!fringe.isEmpty()) {
-			PathNode curr = fringe.poll();
-			visited[curr.row][curr.col] = true;
-			cellsTraversed++;
-			if (curr.equals(map[map.length-1][map.length-1])) {
-				maxFringeSize = Math.max(maxFringeSize, fringe.size());
-				return curr;
-			}else{
-				fringe = updateFringeWithHeuristic(fringe, map, curr, visited, usesEuclidean, distance); 
-				maxFringeSize = Math.max(maxFringeSize, fringe.size());
-			}
-		}
-		return null;
-	}
-
-	// Helper method for AStar that uses a PriorityQueue to store PathNodes on the AStar method's
-	// fringe. Before they are added into the PriorityQueue, their distanceEst fields are set based
-	// on the Euclidean or Manhattan distance of the node from the goal node (depends on usesEuclidean)
-	// and the PriorityQueue behaves as a minHeap so that AStar will always pop the node with the lowest
-	// predicted cost (distance so far + heuristic).
-	public static PriorityQueue<PathNode> updateFringeWithHeuristic(PriorityQueue<PathNode> fringe, PathNode[][] map, PathNode curr, boolean[][] visited, boolean usesEuclidean, int[][]distance){
-		int rowIndex = curr.row;
-		int colIndex = curr.col;
-		if (rowIndex+1 < map.length && map[rowIndex+1][colIndex].isEmpty && !map[rowIndex+1][colIndex].isOnFire && map[rowIndex+1][colIndex].prev == null && !visited[rowIndex+1][colIndex]) { //moving down is a non-repeated, viable choice (node not already in fringe or visited)
-			map[rowIndex+1][colIndex].prev = curr;
-			distance[rowIndex+1][colIndex] = distance[rowIndex][colIndex]+1; //distance to child = distance to parent + one additional operation
-			if (usesEuclidean) {
-				map[rowIndex+1][colIndex].distanceEst = distance[rowIndex+1][colIndex] + Math.sqrt((Math.pow((rowIndex+1)-(map.length-1), 2)) + (Math.pow((colIndex)-(map.length-1), 2))); //add Euclidean distance heuristic to goal to the current distance from start to node
-			}else{
-				map[rowIndex+1][colIndex].distanceEst = distance[rowIndex+1][colIndex] + Math.abs(((rowIndex+1)-(map.length-1)) + (colIndex-(map.length-1))); //add Manhattan distance heuristic to the current distance from start to node
-			}
-			fringe.add(map[rowIndex+1][colIndex]);
-		}
-		if (colIndex+1 < map.length && map[rowIndex][colIndex+1].isEmpty && !map[rowIndex][colIndex+1].isOnFire && map[rowIndex][colIndex+1].prev == null && !visited[rowIndex][colIndex+1]) { //moving right is a non-repeated, viable choice
-			map[rowIndex][colIndex+1].prev = curr;
-			distance[rowIndex][colIndex+1] = distance[rowIndex][colIndex]+1; //distance to child = distance to parent + one additional operation
-			if (usesEuclidean) {
-				map[rowIndex][colIndex+1].distanceEst = distance[rowIndex][colIndex+1] + Math.sqrt((Math.pow((rowIndex)-(map.length-1), 2)) + (Math.pow((colIndex+1)-(map.length-1), 2))); //add Euclidean distance heuristic to goal to the current distance from start to node
-			}else{
-				map[rowIndex][colIndex+1].distanceEst = distance[rowIndex][colIndex+1] + Math.abs(((rowIndex)-(map.length-1)) + ((colIndex+1)-(map.length-1))); //add Manhattan distance heuristic to the current distance from start to node
-			}
-			fringe.add(map[rowIndex][colIndex+1]);
-		}
-		if (rowIndex-1 >= 0 && map[rowIndex-1][colIndex].isEmpty && !map[rowIndex-1][colIndex].isOnFire && map[rowIndex-1][colIndex].prev == null && !visited[rowIndex-1][colIndex]) { //moving up is a non-repeated, viable choice
-			map[rowIndex-1][colIndex].prev = curr;
-			distance[rowIndex-1][colIndex] = distance[rowIndex][colIndex]+1; //distance to child = distance to parent + one additional operation
-			if (usesEuclidean) {//Euclidean distance is the heuristic
-				map[rowIndex-1][colIndex].distanceEst = distance[rowIndex-1][colIndex] + Math.sqrt((Math.pow((rowIndex-1)-(map.length-1), 2)) + (Math.pow((colIndex)-(map.length-1), 2))); //add Euclidean distance heuristic to goal to the current distance from start to node
-			}else{ //use Manhattan distance
-				map[rowIndex-1][colIndex].distanceEst = distance[rowIndex-1][colIndex] + Math.abs(((rowIndex-1)-(map.length-1)) + (colIndex-(map.length-1))); //add Manhattan distance heuristic to the current distance from start to node
-			}
-			fringe.add(map[rowIndex-1][colIndex]);
-		}
-		if (colIndex-1 >= 0 && map[rowIndex][colIndex-1].isEmpty && !map[rowIndex][colIndex-1].isOnFire && map[rowIndex][colIndex-1].prev == null && !visited[rowIndex][colIndex-1]) { //moving left is a non-repeated, viable choice
-			map[rowIndex][colIndex-1].prev = curr;
-			distance[rowIndex][colIndex-1] = distance[rowIndex][colIndex]+1; //distance to child = distance to parent + one additional operation
-			if (usesEuclidean) {
-				map[rowIndex][colIndex-1].distanceEst = distance[rowIndex][colIndex-1] + Math.sqrt((Math.pow((rowIndex)-(map.length-1), 2)) + (Math.pow((colIndex-1)-(map.length-1), 2))); //add Euclidean distance heuristic to goal to the current distance from start to node
-			}else{
-				map[rowIndex][colIndex-1].distanceEst = distance[rowIndex][colIndex-1] + Math.abs(((rowIndex)-(map.length-1)) + ((colIndex-1)-(map.length-1))); //add Manhattan distance heuristic to the current distance from start to node
-			}
-			fringe.add(map[rowIndex][colIndex-1]);
-		}
-		return fringe;
+		return addToTotals(searchAStar(map, usesEuclidean));
+	}
+
+	// searchAStar runs AStar on an input map and returns a SearchResult. The fringe is the
+	// IndexedMinHeap of the thread's SearchWorkspace, ordered by each node's predicted cost
+	// (distance so far + heuristic), and a node already on the fringe that is reached by a
+	// shorter route has its prev and priority updated in place.
+	public static SearchResult searchAStar(PathNode[][]map, boolean usesEuclidean) {
+		long startTime = System.nanoTime();
+		if (map == null || map[0] == null || map[0].length == 0) return new SearchResult(null, 0, 0, 0);  //map isn't constructed in a valid way
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		PathNode goal = workspace.aStar(map, map[0][0], map[map.length-1][map.length-1], usesEuclidean, null);
+		return new SearchResult(goal, workspace.nodesExpanded, workspace.maxFringe, System.nanoTime() - startTime);
 	}
 
-	// This method implements bidirectional BFS on an input map. It uses two fringes that
-	// behave as HashSets to store all nodes that are to be visited by the start-origin BFS
-	// and goal-origin BFS searches. Depending on the nature of the intersection, it either
-	// returns a linked list from start to goal or from goal to start.
+	// Adds the statistics of a search to the cellsTraversed and maxFringeSize globals and
+	// returns its goal. Used by the search methods that still report through the globals.
+	static PathNode addToTotals(SearchResult result) {
+		cellsTraversed += result.nodesExpanded();
+		maxFringeSize = Math.max(maxFringeSize, result.maxFringe());
+		return result.goal();
+	}
+
+	// This method implements bidirectional BFS on an input map and adds its statistics to
+	// cellsTraversed and maxFringeSize; see searchBidirectionalBFS.
 	public static PathNode bidirectionalBFS (PathNode [][] map) {
-		if (map == null || map[0] == null || map[0].length == 0) return null; //map isn't constructed in a valid way
-		PathNode start = map[0][0];
-		PathNode goal = map[map.length-1][map.length-1];		
-		start.prev = null;
-		goal.prev = null;
-		
-		//construct visited arrays for bfs from start and goal
-		boolean [][] visitedFromStart = new boolean [map.length][map.length];
-		boolean [][] visitedFromGoal = new boolean [map.length][map.length];
-		
-		//construct queues for bfs from start and goal
-		LinkedHashSet<PathNode> fringeFromStart = new LinkedHashSet<PathNode>();
-		LinkedHashSet<PathNode> fringeFromGoal = new LinkedHashSet<PathNode>();
-		
-		//initially add the start and goals into the queues
-		fringeFromStart.add(start);
-		fringeFromGoal.add(goal);
-		
-		while (!fringeFromStart.isEmpty() && !fringeFromGoal.isEmpty()) {
-			PathNode intersectFromStart = helperBFS (map, visitedFromStart, fringeFromStart, fringeFromGoal);
-			if (intersectFromStart != null) { // We found a node in fringeFromGoal that we tried to add to fringeFromStart
-				PathNode ptr = fringeFromStart.iterator().next();
-				PathNode ptr2 = intersectFromStart;
-				while (ptr != null) {
-					PathNode temp = ptr.prev;
-					ptr.prev = ptr2;
-					ptr2 = ptr;
-					ptr = temp;
-				}
-				return ptr2; // We should be done with path construction, hopefully (this goes start to goal) and returns start PathNode.
-			}
-			PathNode intersectFromGoal = helperBFS (map, visitedFromGoal, fringeFromGoal, fringeFromStart);
-			if (intersectFromGoal != null) { // We found a node in fringeFromStart that we tried to add to fringeFromGoal
-				PathNode ptr = fringeFromGoal.iterator().next();
-				PathNode ptr2 = intersectFromGoal;
-				while (ptr != null) {
-					PathNode temp = ptr.prev;
-					ptr.prev = ptr2;
-					ptr2 = ptr;
-					ptr = temp;
-				}
-				return ptr2; // We should be done with path construction, hopefully (this goes goal to start) and returns goal PathNode.
-			}
-	
-			// If we get here, then both BFS's were run for one step and neither intersected the other's fringe
-			fringeFromStart.remove(fringeFromStart.iterator().next()); // Removes first node from the start fringe that we just processed
-			fringeFromGoal.remove(fringeFromGoal.iterator().next()); // Removes first node from the goal fringe that we just processed
-			// Update maximum fringe size with the larger value: sum of the fringes vs current max fringe size
-			maxFringeSize = Math.max(maxFringeSize, fringeFromStart.size() + fringeFromGoal.size());
-		}
-		return null;
-	}
-
-	// Helper method for bidirectional BFS. Returns null if fringe node has already been visited (should never happen)
-	// or if all possible neighbors of first node in fringe were added to fringe normally. Otherwise, one of the neighbors
-	// of the first node was already on the fringe of the BFS procedure occurring in the opposite direction.
-	public static PathNode helperBFS (PathNode [][] map, boolean [][] visited, LinkedHashSet <PathNode> expandFringe, LinkedHashSet<PathNode> intersectFringe) {
-		PathNode curr = expandFringe.iterator().next(); // We are visiting the first node on the fringe
-		if (!visited [curr.row][curr.col]) { // This should always be true, because nodes added to the fringe are checked to not have already been visited.
-			cellsTraversed++;
-			visited [curr.row][curr.col] = true;
-			//System.out.println("Visited by BD-DFS: (" + curr.row + "," + curr.col + ")");
-			cellsTraversed++;
-			PathNode intersect = updateFringeBDBFS(expandFringe, intersectFringe, map, curr, visited);
-			return intersect;
+		return addToTotals(searchBidirectionalBFS(map));
+	}
+
+	// searchBidirectionalBFS implements bidirectional BFS on an input map. The search itself runs
+	// on a packed copy of the map (see SearchWorkspace.bidirectionalSearch): the searches from the
+	// start and from the goal each expand a whole level at a time, the smaller frontier first, and
+	// stop at the first edge between them, which completes a shortest path. Only the prev pointers
+	// of the nodes on that path are then set, so the returned goal is the head of a linked list
+	// back to the start like the other searches, and nothing else in the map is touched.
+	// Packing the map reads all dim*dim nodes on every call, more than the search itself usually
+	// visits, so this overload is only a convenience for the PathNode[][] demos such as
+	// pathsForAllAlgorithms; the experiments search their PackedMaze directly.
+	public static SearchResult searchBidirectionalBFS (PathNode [][] map) {
+		long startTime = System.nanoTime();
+		if (map == null || map[0] == null || map[0].length == 0) return new SearchResult(null, 0, 0, 0); //map isn't constructed in a valid way
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		PackedMaze maze = PackedMaze.fromMap(map);
+		int found = workspace.bidirectionalSearch(maze);
+		PathNode goal = null;
+		if (found >= 0) {
+			int dim = map.length;
+			for (int cell = found; cell != -1; cell = workspace.parent[cell]) { //link the path from the goal back to the start
+				int from = workspace.parent[cell];
+				map[cell / dim][cell % dim].prev = from == -1 ? null : map[from / dim][from % dim];
+			}
+			goal = map[dim-1][dim-1];
 		}
-		return null;
+		return new SearchResult(goal, workspace.nodesExpanded, workspace.maxFringe, System.nanoTime() - startTime);
 	}
-	
-	// Helper method for bidirectional BFS and helperBFS. Behaves similarly to updateFringe,
-	// but takes in two fringes and checks to see if the neighbor nodes we are adding into one
-	// of them is already in the other. If so, it is not added and the neighboring node is returned
-	// so that the process can terminate (an intersection between the two fringes has been found).
-	public static PathNode updateFringeBDBFS(LinkedHashSet<PathNode> expandFringe, LinkedHashSet<PathNode> intersectFringe, PathNode [][] map, PathNode curr, boolean [][] visited) {
-		int rowIndex = curr.row;
-		int colIndex = curr.col;
-		
-		if (rowIndex+1 < map.length && map[rowIndex+1][colIndex].isEmpty && !visited[rowIndex+1][colIndex]) { //moving down is a non-repeated, viable choice (node not already in fringe or visited)
-			if (intersectFringe.contains(map[rowIndex+1][colIndex])) {
-				return map[rowIndex+1][colIndex];
-			}
-			map[rowIndex+1][colIndex].prev = curr;
-			expandFringe.add(map[rowIndex+1][colIndex]);
+
+	// The methods below run the same searches on a PackedMaze. Cells are int ids, the
+	// fringe holds ids instead of PathNodes, and prev pointers are kept in an int[] parent
+	// array so that the maze itself is never modified. When a search succeeds, the result
+	// keeps the path as an int[] of cells; goal() turns it into a fresh chain of PathNodes
+	// ending at the goal the first time it is called, so callers can walk it through prev
+	// exactly like the PathNode[][] versions, and the experiments that only read the
+	// counts never allocate a PathNode.
+
+	// BFS on a PackedMaze. It follows the same fringe and visited rules as
+	// BreadthFirstSearch(PathNode[][]), so cellsTraversed and maxFringeSize are updated
+	// by exactly the same amounts.
+	public static PathNode BreadthFirstSearch(PackedMaze maze) {
+		return addToTotals(searchBFS(maze));
+	}
+
+	public static SearchResult searchBFS(PackedMaze maze) {
+		long startTime = System.nanoTime();
+		if (maze == null || maze.dim == 0) return new SearchResult(null, 0, 0, 0);
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		int goal = workspace.breadthFirstSearch(maze);
+		return packedResult(maze, workspace, goal, startTime);
+	}
+
+	// DFS on a PackedMaze, following the rules of DepthFirstSearch(PathNode[][]).
+	public static PathNode DepthFirstSearch(PackedMaze maze) {
+		return addToTotals(searchDFS(maze));
+	}
+
+	public static SearchResult searchDFS(PackedMaze maze) {
+		long startTime = System.nanoTime();
+		if (maze == null || maze.dim == 0) return new SearchResult(null, 0, 0, 0);
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		int goal = workspace.depthFirstSearch(maze);
+		return packedResult(maze, workspace, goal, startTime);
+	}
+
+	// AStar on a PackedMaze. Cells that are occupied or on fire are not entered. The fringe
+	// is ordered by distance so far + Euclidean or Manhattan distance to the goal.
+	public static PathNode AStar(PackedMaze maze, boolean usesEuclidean) {
+		return addToTotals(searchAStar(maze, maze.start(), maze.goal(), usesEuclidean));
+	}
+
+	// AStar on a PackedMaze between any two cells, the PackedMaze counterpart of AStarForFire.
+	public static SearchResult searchAStar(PackedMaze maze, int start, int goal, boolean usesEuclidean) {
+		long startTime = System.nanoTime();
+		if (maze == null || maze.dim == 0) return new SearchResult(null, 0, 0, 0);
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		int found = workspace.aStar(maze, start, goal, usesEuclidean);
+		return packedResult(maze, workspace, found, startTime);
+	}
+
+	// Builds the SearchResult of a workspace search on a PackedMaze that ended at goal (-1 if
+	// the goal was not reached).
+	private static SearchResult packedResult(PackedMaze maze, SearchWorkspace workspace, int goal, long startTime) {
+		int[] path = goal < 0 ? null : cellsFromParents(workspace.parent, goal);
+		return new SearchResult(maze, path, workspace.nodesExpanded, workspace.maxFringe, System.nanoTime() - startTime);
+	}
+
+	// Euclidean or Manhattan distance between (row, col) and (goalRow, goalCol).
+	public static double heuristic(int row, int col, int goalRow, int goalCol, boolean usesEuclidean) {
+		int dRow = row - goalRow, dCol = col - goalCol;
+		if (usesEuclidean) {
+			return Math.sqrt(dRow * dRow + dCol * dCol);
 		}
-		if (colIndex+1 < map.length && map[rowIndex][colIndex+1].isEmpty && !visited[rowIndex][colIndex+1]) { //moving right is a non-repeated, viable choice
-			if (intersectFringe.contains(map[rowIndex][colIndex+1])) {
-				return map[rowIndex][colIndex+1];
-			}
-			map[rowIndex][colIndex+1].prev = curr;
-			expandFringe.add(map[rowIndex][colIndex+1]);
+		return Math.abs(dRow) + Math.abs(dCol);
+	}
+
+	// Bidirectional BFS on a PackedMaze, using the level-synchronous search of
+	// SearchWorkspace.bidirectionalSearch. The returned chain runs from the start to the goal.
+	public static PathNode bidirectionalBFS(PackedMaze maze) {
+		return addToTotals(searchBidirectionalBFS(maze));
+	}
+
+	public static SearchResult searchBidirectionalBFS(PackedMaze maze) {
+		long startTime = System.nanoTime();
+		if (maze == null || maze.dim == 0) return new SearchResult(null, 0, 0, 0);
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		int goal = workspace.bidirectionalSearch(maze);
+		return packedResult(maze, workspace, goal, startTime);
+	}
+
+	// Turns the parent array of a PackedMaze search into a chain of new PathNodes, with the
+	// returned node at cell and prev pointers leading back to the cell whose parent is -1.
+	public static PathNode pathFromParents(PackedMaze maze, int[] parent, int cell) {
+		PathNode head = new PathNode(maze.row(cell), maze.col(cell), maze.isEmpty(cell), maze.isOnFire(cell));
+		PathNode node = head;
+		for (int c = parent[cell]; c != -1; c = parent[c]) {
+			node.prev = new PathNode(maze.row(c), maze.col(c), maze.isEmpty(c), maze.isOnFire(c));
+			node = node.prev;
 		}
-		if (rowIndex-1 >= 0 && map[rowIndex-1][colIndex].isEmpty && !visited[rowIndex-1][colIndex]) { //moving up is a non-repeated, viable choice
-			if (intersectFringe.contains(map[rowIndex-1][colIndex])) {
-				return map[rowIndex-1][colIndex];
-			}
-			map[rowIndex-1][colIndex].prev = curr;
-			expandFringe.add(map[rowIndex-1][colIndex]);
+		return head;
+	}
+
+	// The cells of the path that ends at cell in a parent array, from the cell whose parent
+	// is -1 to cell.
+	static int[] cellsFromParents(int[] parent, int cell) {
+		int length = 0;
+		for (int c = cell; c != -1; c = parent[c]) {
+			length++;
 		}
-		if (colIndex-1 >= 0 && map[rowIndex][colIndex-1].isEmpty && !visited[rowIndex][colIndex-1]) { //moving left is a non-repeated, viable choice
-			if (intersectFringe.contains(map[rowIndex][colIndex-1])) {
-				return map[rowIndex][colIndex-1];
-			}
-			map[rowIndex][colIndex-1].prev = curr;
-			expandFringe.add(map[rowIndex][colIndex-1]);
+		int[] cells = new int[length];
+		for (int c = cell; c != -1; c = parent[c]) {
+			cells[--length] = c;
 		}
-		
-		return null;
+		return cells;
 	}
 
 	// Allows for a single maze to be generated with density (p) set to the specified
 	// parameter. Then, all of the algorithms for solving static mazes implemented in this
 	// project are called on the same maze and their results displayed on the GUI.
 	public static void pathsForAllAlgorithms(double p) {
-		PathNode bfsGoal, dfsGoal, bidirectBFSGoal, euclidGoal, manhattanGoal = null;
+		SearchResult bfs, dfs, bidirectBFS, euclid, manhattan;
 		do {
 			PathNode[][] testMap = generateMap(100, p, false);
-			PathNode goal = null;
-			cellsTraversed = 0;
-			maxFringeSize = 0;
-			dfsGoal = DepthFirstSearch(testMap);
-			printMazeSolutionGUI(testMap, dfsGoal, testMap[0][0], "DFS");
-			System.out.println("DFS expanded " + cellsTraversed + " nodes for this maze.");
-			System.out.println("The maximum fringe size of DFS for this maze was " + maxFringeSize + " nodes.");
-			int length = 0;
-			goal = dfsGoal;
-			while (goal != null) {
-				length++;
-				goal = goal.prev;
-			}
-			System.out.println("The length of the path returned by DFS is: " + length);
+			dfs = searchDFS(testMap);
+			printMazeSolutionGUI(testMap, dfs.goal(), testMap[0][0], "DFS");
+			System.out.println("DFS expanded " + dfs.nodesExpanded() + " nodes for this maze.");
+			System.out.println("The maximum fringe size of DFS for this maze was " + dfs.maxFringe() + " nodes.");
+			System.out.println("The length of the path returned by DFS is: " + dfs.pathLength());
 			resetMap(testMap);
 			
-			cellsTraversed = 0;
-			maxFringeSize = 0;
-			bfsGoal = BreadthFirstSearch(testMap);
-			printMazeSolutionGUI(testMap, bfsGoal, testMap[0][0], "BFS");
-			System.out.println("BFS expanded " + cellsTraversed + " nodes for this maze.");
-			System.out.println("The maximum fringe size of BFS for this maze was " + maxFringeSize + " nodes.");
-			length = 0;
-			goal = bfsGoal;
-			while (goal != null) {
-				length++;
-				goal = goal.prev;
-			}
-			System.out.println("The length of the path returned by BFS is: " + length);
+			bfs = searchBFS(testMap);
+			printMazeSolutionGUI(testMap, bfs.goal(), testMap[0][0], "BFS");
+			System.out.println("BFS expanded " + bfs.nodesExpanded() + " nodes for this maze.");
+			System.out.println("The maximum fringe size of BFS for this maze was " + bfs.maxFringe() + " nodes.");
+			System.out.println("The length of the path returned by BFS is: " + bfs.pathLength());
 			resetMap(testMap);
 			
-			cellsTraversed = 0;
-			maxFringeSize = 0;
-			bidirectBFSGoal = bidirectionalBFS(testMap);
-			printMazeSolutionGUI(testMap, bidirectBFSGoal, testMap[0][0], "Bidirectional BFS");
-			System.out.println("Bidirectional BFS expanded " + cellsTraversed + " nodes for this maze.");
-			System.out.println("The maximum total fringe size for both fringes in bidirectional BFS for this maze was " + maxFringeSize + " nodes.");
-			length = 0;
-			goal = bidirectBFSGoal;
-			while (goal != null) {
-				length++;
-				goal = goal.prev;
-			}
-			System.out.println("The length of the path returned by bidirectional BFS is: " + length);
+			bidirectBFS = searchBidirectionalBFS(testMap);
+			printMazeSolutionGUI(testMap, bidirectBFS.goal(), testMap[0][0], "Bidirectional BFS");
+			System.out.println("Bidirectional BFS expanded " + bidirectBFS.nodesExpanded() + " nodes for this maze.");
+			System.out.println("The maximum total fringe size for both fringes in bidirectional BFS for this maze was " + bidirectBFS.maxFringe() + " nodes.");
+			System.out.println("The length of the path returned by bidirectional BFS is: " + bidirectBFS.pathLength());
 			resetMap(testMap);
 			
-			cellsTraversed = 0;
-			maxFringeSize = 0;
-			euclidGoal = AStar(testMap, true);
-			printMazeSolutionGUI(testMap, euclidGoal, testMap[0][0], "A*-Euclidean");
-			System.out.println("A* with the Euclidean distance as the heuristic expanded " + cellsTraversed + " nodes for this maze.");
-			System.out.println("The maximum fringe size of A* with the Euclidean distance heuristic for this maze was " + maxFringeSize + " nodes.");
-			length = 0;
-			goal = euclidGoal;
-			while (goal != null) {
-				length++;
-				goal = goal.prev;
-			}
-			System.out.println("The length of the path returned by A*-Euclidean is: " + length);
+			euclid = searchAStar(testMap, true);
+			printMazeSolutionGUI(testMap, euclid.goal(), testMap[0][0], "A*-Euclidean");
+			System.out.println("A* with the Euclidean distance as the heuristic expanded " + euclid.nodesExpanded() + " nodes for this maze.");
+			System.out.println("The maximum fringe size of A* with the Euclidean distance heuristic for this maze was " + euclid.maxFringe() + " nodes.");
+			System.out.println("The length of the path returned by A*-Euclidean is: " + euclid.pathLength());
 			resetMap(testMap);
 			
-			cellsTraversed = 0;
-			maxFringeSize = 0;
-			manhattanGoal = AStar(testMap, false);
-			System.out.println("A* with the Manhattan distance as the heuristic expanded " + cellsTraversed + " nodes for this maze.");
-			System.out.println("The maximum fringe size of A* with the Manhattan distance heuristic for this maze was " + maxFringeSize + " nodes.");
-			length = 0;
-			goal = manhattanGoal;
-			while (goal != null) {
-				length++;
-				goal = goal.prev;
-			}
-			System.out.println("The length of the path returned by A*-Manhattan is: " + length);
-			printMazeSolutionGUI(testMap, manhattanGoal, testMap[0][0], "A*-Manhattan");
+			manhattan = searchAStar(testMap, false);
+			System.out.println("A* with the Manhattan distance as the heuristic expanded " + manhattan.nodesExpanded() + " nodes for this maze.");
+			System.out.println("The maximum fringe size of A* with the Manhattan distance heuristic for this maze was " + manhattan.maxFringe() + " nodes.");
+			System.out.println("The length of the path returned by A*-Manhattan is: " + manhattan.pathLength());
+			printMazeSolutionGUI(testMap, manhattan.goal(), testMap[0][0], "A*-Manhattan");
 			resetMap(testMap);
 			
-		} while (bfsGoal == null || dfsGoal == null || bidirectBFSGoal == null || euclidGoal == null || manhattanGoal == null);
+		} while (!bfs.isSolved() || !dfs.isSolved() || !bidirectBFS.isSolved() || !euclid.isSolved() || !manhattan.isSolved());
 		
 	}
 	
@@ -525,10 +366,11 @@ public class StaticGenAndSearch {
 	// a decimal value between 0 and 1 representing the probability that a randomly generated maze
 	// with density p will be solved. Plots are generated for all the different algorithms
 	// explored in this project, and the probability of being solved is generated based on sample
-	// sizes of 100 mazes for each data point.
+	// sizes of 100 mazes for each data point. Since every algorithm solves exactly the same mazes,
+	// the curve is estimated once with PercolationEstimator instead of searching each maze.
 	public static void plotMazeSolvability() {
 		ApplicationFrame solvabilityPlotApp = new ApplicationFrame("Maze Solvability Window");
-		JFreeChart solvabilityPlot = ChartFactory.createXYLineChart("Maze Solvability at Different Densities", "Density (p)", "Fraction Solved", mazeSolvability(100), PlotOrientation.VERTICAL, true, true, false);
+		JFreeChart solvabilityPlot = ChartFactory.createXYLineChart("Maze Solvability at Different Densities", "Density (p)", "Fraction Solved", percolationSolvability(100), PlotOrientation.VERTICAL, true, true, false);
 		ChartPanel chartPanel = new ChartPanel(solvabilityPlot);
 		chartPanel.setPreferredSize(new java.awt.Dimension(560, 367));
 		solvabilityPlotApp.setContentPane(chartPanel);
@@ -543,75 +385,76 @@ public class StaticGenAndSearch {
 	// the number of the total mazes that return solutions. That value is divided by 1000 to get the
 	// decimal value of solvability between 0 and 1.
 	public static DefaultXYDataset mazeSolvability(int dim) {
+		return mazeSolvability(dim, MazeRandom.current().nextLong());
+	}
+
+	// Solvability dataset for the plot, estimated from 1000 PercolationEstimator trials. Each
+	// trial gives its maze's solvability at all 50 densities, so this replaces the 50 x 1000 mazes
+	// and 5 searches per maze of mazeSolvability. The result is labeled for all algorithms since
+	// whether a maze can be solved does not depend on the algorithm.
+	public static DefaultXYDataset percolationSolvability(int dim) {
+		return percolationSolvability(dim, MazeRandom.current().nextLong());
+	}
+
+	public static DefaultXYDataset percolationSolvability(int dim, long seed) {
 		DefaultXYDataset data = new DefaultXYDataset();
+		data.addSeries("All Algorithms", PercolationEstimator.curve(dim, 1000, seed, MonteCarloEngine.densities(50, 0.02)));
+		return data;
+	}
+
+	// mazeSolvability with a fixed seed: the same dim and seed always give the same dataset.
+	// The 50 x 1000 trials are spread over all cores by MonteCarloEngine.
+	public static DefaultXYDataset mazeSolvability(int dim, long seed) {
+		DefaultXYDataset data = new DefaultXYDataset();
+		double[] densities = MonteCarloEngine.densities(50, 0.02);
 		
-		double[][] dfsData = new double[2][50];
-		double[][] bfsData = new double[2][50];
-		double[][] bdbfsData = new double[2][50];
-		double[][] euclidData = new double[2][50];
-		double[][] manhattanData = new double[2][50];
-		
-		for (int p = 0; p < 50; p++) {
-			int numDFSSolved = 0;
-			int numBFSSolved = 0;
-			int numBDBFSSolved = 0;
-			int numManhattanSolved = 0;
-			int numEuclidSolved = 0;
-			
-			for (int trial = 0; trial < 1000; trial++) {
-				PathNode [][] testMap = generateMap(dim, 0.02*p, false);
-				
-				PathNode dfsSoln = DepthFirstSearch(testMap);
-				if (dfsSoln != null) {
-					numDFSSolved++;
-				}
-				resetMap(testMap);
-				
-				PathNode bfsSoln = BreadthFirstSearch(testMap);
-				if (bfsSoln != null) {
-					numBFSSolved++;
-				}
-				resetMap(testMap);
-				
-				PathNode bdbfsSoln = bidirectionalBFS(testMap);
-				if (bdbfsSoln != null) {
-					numBDBFSSolved++;
-				}
-				resetMap(testMap);
-				
-				PathNode manhattanAStarSoln = AStar(testMap, false);
-				if (manhattanAStarSoln != null) {
-					numManhattanSolved++;
-				}
-				resetMap(testMap);
-				
-				PathNode euclidAStarSoln = AStar(testMap, true);
-				if (euclidAStarSoln != null) {
-					numEuclidSolved++;
-				}
-				
+		long[][] numSolved = MonteCarloEngine.common().run(densities, 1000, 5, seed, (p, random, counts) -> {
+			PackedMaze testMap = PackedMaze.generate(dim, p, false, random);
+			if (searchDFS(testMap).isSolved()) {
+				counts[0]++;
 			}
-			
-			dfsData[0][p] = 0.02*p;
-			dfsData[1][p] = (numDFSSolved/1000.0);
-			bfsData[0][p] = 0.02*p;
-			bfsData[1][p] = (numBFSSolved/1000.0);
-			bdbfsData[0][p] = 0.02*p;
-			bdbfsData[1][p] = (numBDBFSSolved/1000.0);
-			euclidData[0][p] = 0.02*p;
-			euclidData[1][p] = (numEuclidSolved/1000.0);
-			manhattanData[0][p] = 0.02*p;
-			manhattanData[1][p] = (numManhattanSolved/1000.0);
-			
-		}
+			if (searchBFS(testMap).isSolved()) {
+				counts[1]++;
+			}
+			if (searchBidirectionalBFS(testMap).isSolved()) {
+				counts[2]++;
+			}
+			if (searchAStar(testMap, testMap.start(), testMap.goal(), false).isSolved()) {
+				counts[3]++;
+			}
+			if (searchAStar(testMap, testMap.start(), testMap.goal(), true).isSolved()) {
+				counts[4]++;
+			}
+		});
 		
-		data.addSeries("A*-Manhattan", manhattanData);
-		data.addSeries("DFS", dfsData);
-		data.addSeries("BFS", bfsData);
-		data.addSeries("Bidirectional BFS", bdbfsData);
-		data.addSeries("A*-Euclidean", euclidData);
+		data.addSeries("A*-Manhattan", series(densities, numSolved, 3, 1000));
+		data.addSeries("DFS", series(densities, numSolved, 0, 1000));
+		data.addSeries("BFS", series(densities, numSolved, 1, 1000));
+		data.addSeries("Bidirectional BFS", series(densities, numSolved, 2, 1000));
+		data.addSeries("A*-Euclidean", series(densities, numSolved, 4, 1000));
 		return data;
 	}
+
+	// Builds one plot series from the counts of a MonteCarloEngine run: the x values are the
+	// densities and the y values are counter divided by trials at each density.
+	static double[][] series(double[] densities, long[][] counts, int counter, int trials) {
+		double[][] series = new double[2][densities.length];
+		for (int i = 0; i < densities.length; i++) {
+			series[0][i] = densities[i];
+			series[1][i] = counts[i][counter] / (double) trials;
+		}
+		return series;
+	}
+
+	// Returns a solvable maze of dimension dim and density p, generating new ones from random
+	// until A*-Manhattan finds a path.
+	static PackedMaze generateSolvableMaze(int dim, double p, MazeRandom random) {
+		PackedMaze maze = PackedMaze.generate(dim, p, false, random);
+		while (!searchAStar(maze, maze.start(), maze.goal(), false).isSolved()) {
+			maze = PackedMaze.generate(dim, p, false, random);
+		}
+		return maze;
+	}
 	
 	// Plots the average shortest paths found by A*-Manhattan. This method simply
 	// builds the GUI for the plot and calls a helper method to construct the dataset that
@@ -630,36 +473,24 @@ public class StaticGenAndSearch {
 	// Generates the data needed to plot the average shortest path through various mazes
 	// of dimension 100 and variable densities. For each value of p (at intervals of 0.01
 	// between 0 and 0.41), it generates 1000 solvable mazes (and throws away unsolvable ones)
-	// and determines the average shortest path at that value of p.
+	// and determines the average shortest path at that value of p. The trials run in
+	// parallel on MonteCarloEngine.
 	public static DefaultXYDataset shortestPath() {
+		return shortestPath(MazeRandom.current().nextLong());
+	}
+
+	public static DefaultXYDataset shortestPath(long seed) {
 		DefaultXYDataset averagePathLengths = new DefaultXYDataset();
+		double[] densities = MonteCarloEngine.densities(42, 0.01);
 		
-		double[][] pathLengthData = new double[2][42];
-		
-		for (int p = 0; p < 42; p++) {
-			int totalLength = 0;
-			for (int trial = 0; trial < 1000; trial++) {
-				PathNode [][] testMap = generateMap(100, 0.01*p, false);
-				int length = 0;
-			
-				PathNode manhattanAStarSoln = AStar(testMap, false);
-				while (manhattanAStarSoln == null) {
-					testMap = generateMap(100, 0.01*p, false);
-					manhattanAStarSoln = AStar(testMap, false);
-				}
-				
-				while (manhattanAStarSoln != null) {
-					length++;
-					manhattanAStarSoln = manhattanAStarSoln.prev;
-				}
-				
-				totalLength += length;
-				
-			}
-			System.out.println("p: " + p*0.01);
-			System.out.println("Avg Shortest Path Length: " + (totalLength/1000.0));
-			pathLengthData[0][p] = p*0.01;
-			pathLengthData[1][p] = totalLength/1000.0;
+		long[][] totalLength = MonteCarloEngine.common().run(densities, 1000, 1, seed, (p, random, counts) -> {
+			PackedMaze testMap = generateSolvableMaze(100, p, random);
+			counts[0] += record("A*-Manhattan", 100, p, random, searchAStar(testMap, testMap.start(), testMap.goal(), false)).pathLength();
+		});
+		double[][] pathLengthData = series(densities, totalLength, 0, 1000);
+		for (int p = 0; p < densities.length; p++) {
+			log("p: " + pathLengthData[0][p]);
+			log("Avg Shortest Path Length: " + pathLengthData[1][p]);
 		}
 		averagePathLengths.addSeries("Average Path Lengths with A*-Manhattan", pathLengthData);
 		
@@ -684,46 +515,28 @@ public class StaticGenAndSearch {
 	// at evenly-spaced intervals of 0.01, it generates 1000 solvable mazes and throws
 	// away the unsolvable ones. For each of those solvable mazes, it runs A* using the
 	// Euclidean distance heuristic and then the Manhattan distance heuristic. It takes
-	// the sum of all the cellsTraversed during these trials and divides it by 1000 and
-	// generates this data point for each value of p between 0 and 0.41.
+	// the sum of the nodes expanded during these trials and divides it by 1000 and
+	// generates this data point for each value of p between 0 and 0.41. The trials run
+	// in parallel on MonteCarloEngine, and passing a seed makes the dataset reproducible.
 	public static DefaultXYDataset avgAStarNodes() {
+		return avgAStarNodes(MazeRandom.current().nextLong());
+	}
+
+	public static DefaultXYDataset avgAStarNodes(long seed) {
 		DefaultXYDataset AStarNodes = new DefaultXYDataset();
+		double[] densities = MonteCarloEngine.densities(41, 0.01);
 		
-		double[][] numEuclidNodes = new double[2][41];
-		double[][] numManhattanNodes = new double[2][41];
-		
-		for (int p = 0; p < 41; p++) {
-			int totalEuclidNodes = 0, totalManhattanNodes = 0;
-			for (int trial = 0; trial < 1000; trial++) {
-				PathNode[][] testMap = generateMap(100, 0.01*p, false);
-				
-				cellsTraversed = 0;
-				PathNode AStarEuclid = AStar(testMap, true);
-				while (AStarEuclid == null) {
-					System.out.println("Generated unsolvable map, trying again.");
-					cellsTraversed = 0;
-					testMap = generateMap(100, 0.01*p, false);
-					AStarEuclid = AStar(testMap, true);
-				}
-				System.out.println("Trial: " + trial);
-				System.out.println("Number of Euclid Nodes: " + cellsTraversed);
-				totalEuclidNodes += cellsTraversed;
-				
-				resetMap(testMap);
-				cellsTraversed = 0;
-				PathNode AStarManhattan = AStar(testMap, false);
-				System.out.println("Number of Manhattan Nodes: " + cellsTraversed);
-				totalManhattanNodes += cellsTraversed;
-				
-			}
-			numEuclidNodes[0][p] = 0.01*p;
-			numEuclidNodes[1][p] = totalEuclidNodes/1000.0;
-			System.out.println("p: " + numEuclidNodes[0][p]);
-			System.out.println("Avg Euclid Nodes: " + numEuclidNodes[1][p]);
-			
-			numManhattanNodes[0][p] = 0.01*p;
-			numManhattanNodes[1][p] = totalManhattanNodes/1000.0;
-			System.out.println("Avg Manhattan Nodes: " + numManhattanNodes[1][p]);
+		long[][] totalNodes = MonteCarloEngine.common().run(densities, 1000, 2, seed, (p, random, counts) -> {
+			PackedMaze testMap = generateSolvableMaze(100, p, random);
+			counts[0] += record("A*-Euclidean", 100, p, random, searchAStar(testMap, testMap.start(), testMap.goal(), true)).nodesExpanded();
+			counts[1] += record("A*-Manhattan", 100, p, random, searchAStar(testMap, testMap.start(), testMap.goal(), false)).nodesExpanded();
+		});
+		double[][] numEuclidNodes = series(densities, totalNodes, 0, 1000);
+		double[][] numManhattanNodes = series(densities, totalNodes, 1, 1000);
+		for (int p = 0; p < densities.length; p++) {
+			log("p: " + numEuclidNodes[0][p]);
+			log("Avg Euclid Nodes: " + numEuclidNodes[1][p]);
+			log("Avg Manhattan Nodes: " + numManhattanNodes[1][p]);
 		}
 		AStarNodes.addSeries("A*-Euclidean", numEuclidNodes);
 		AStarNodes.addSeries("A*-Manhattan", numManhattanNodes);
@@ -750,81 +563,37 @@ public class StaticGenAndSearch {
 	// at evenly-spaced intervals of 0.01, it generates 1000 solvable mazes and throws
 	// away the unsolvable ones. For each of those solvable mazes, it runs all of
 	// the static search algorithms: BFS, DFS, bidirectional BFS, and A*-Manhattan/Euclidean. It takes
-	// the sum of all the cellsTraversed during these trials and divides it by 1000 and
+	// the sum of the nodes expanded during these trials and divides it by 1000 and
 	// generates this data point for each algorithm  and value of p between 0 and 0.41.
+	// Like avgAStarNodes, it runs on MonteCarloEngine.
 	public static DefaultXYDataset avgNodesExpanded() {
+		return avgNodesExpanded(MazeRandom.current().nextLong());
+	}
+
+	public static DefaultXYDataset avgNodesExpanded(long seed) {
 		DefaultXYDataset nodesExpanded = new DefaultXYDataset();
+		double[] densities = MonteCarloEngine.densities(41, 0.01);
 		
-		double[][] bfsNodes = new double[2][41];
-		double[][] dfsNodes = new double[2][41];
-		double[][] bdBFSNodes = new double[2][41];
-		double[][] numEuclidNodes = new double[2][41];
-		double[][] numManhattanNodes = new double[2][41];
-		
-		for (int p = 0; p < 41; p++) {
-			int totalEuclidNodes = 0, totalManhattanNodes = 0, totalBFSNodes = 0, totalDFSNodes = 0, totalbdBFSNodes = 0;
-			for (int trial = 0; trial < 1000; trial++) {
-				PathNode[][] testMap = generateMap(100, 0.01*p, false);
-				
-				cellsTraversed = 0;
-				PathNode AStarEuclid = AStar(testMap, true);
-				while (AStarEuclid == null) {
-					System.out.println("Generated unsolvable map, trying again.");
-					cellsTraversed = 0;
-					testMap = generateMap(100, 0.01*p, false);
-					AStarEuclid = AStar(testMap, true);
-				}
-				System.out.println("Trial: " + trial);
-				System.out.println("Number of Euclid Nodes: " + cellsTraversed);
-				totalEuclidNodes += cellsTraversed;
-				
-				resetMap(testMap);
-				cellsTraversed = 0;
-				PathNode AStarManhattan = AStar(testMap, false);
-				System.out.println("Number of Manhattan Nodes: " + cellsTraversed);
-				totalManhattanNodes += cellsTraversed;
-				
-				resetMap(testMap);
-				cellsTraversed = 0;
-				PathNode bfs = BreadthFirstSearch(testMap);
-				System.out.println("Number of BFS Nodes: " + cellsTraversed);
-				totalBFSNodes += cellsTraversed;
-				
-				resetMap(testMap);
-				cellsTraversed = 0;
-				PathNode dfs = DepthFirstSearch(testMap);
-				System.out.println("Number of DFS Nodes: " + cellsTraversed);
-				totalDFSNodes += cellsTraversed;
-				
-				resetMap(testMap);
-				cellsTraversed = 0;
-				PathNode bdBFS = bidirectionalBFS(testMap);
-				System.out.println("Number of Bidirectional BFS Nodes: " + cellsTraversed);
-				totalbdBFSNodes += cellsTraversed;
-			}
-			dfsNodes[0][p] = 0.01*p;
-			dfsNodes[1][p] = totalDFSNodes/1000.0;
-			System.out.println("p: " + dfsNodes[0][p]);
-			System.out.println("Avg Euclid Nodes: " + dfsNodes[1][p]);
-			
-			bfsNodes[0][p] = 0.01*p;
-			bfsNodes[1][p] = totalBFSNodes/1000.0;
-			System.out.println("p: " + bfsNodes[0][p]);
-			System.out.println("Avg Euclid Nodes: " + bfsNodes[1][p]);
-			
-			bdBFSNodes[0][p] = 0.01*p;
-			bdBFSNodes[1][p] = totalbdBFSNodes/1000.0;
-			System.out.println("p: " + bdBFSNodes[0][p]);
-			System.out.println("Avg Euclid Nodes: " + bdBFSNodes[1][p]);
-			
-			numEuclidNodes[0][p] = 0.01*p;
-			numEuclidNodes[1][p] = totalEuclidNodes/1000.0;
-			System.out.println("p: " + numEuclidNodes[0][p]);
-			System.out.println("Avg Euclid Nodes: " + numEuclidNodes[1][p]);
-			
-			numManhattanNodes[0][p] = 0.01*p;
-			numManhattanNodes[1][p] = totalManhattanNodes/1000.0;
-			System.out.println("Avg Manhattan Nodes: " + numManhattanNodes[1][p]);
+		long[][] totalNodes = MonteCarloEngine.common().run(densities, 1000, 5, seed, (p, random, counts) -> {
+			PackedMaze testMap = generateSolvableMaze(100, p, random);
+			counts[0] += record("BFS", 100, p, random, searchBFS(testMap)).nodesExpanded();
+			counts[1] += record("DFS", 100, p, random, searchDFS(testMap)).nodesExpanded();
+			counts[2] += record("Bidirectional BFS", 100, p, random, searchBidirectionalBFS(testMap)).nodesExpanded();
+			counts[3] += record("A*-Euclidean", 100, p, random, searchAStar(testMap, testMap.start(), testMap.goal(), true)).nodesExpanded();
+			counts[4] += record("A*-Manhattan", 100, p, random, searchAStar(testMap, testMap.start(), testMap.goal(), false)).nodesExpanded();
+		});
+		double[][] bfsNodes = series(densities, totalNodes, 0, 1000);
+		double[][] dfsNodes = series(densities, totalNodes, 1, 1000);
+		double[][] bdBFSNodes = series(densities, totalNodes, 2, 1000);
+		double[][] numEuclidNodes = series(densities, totalNodes, 3, 1000);
+		double[][] numManhattanNodes = series(densities, totalNodes, 4, 1000);
+		for (int p = 0; p < densities.length; p++) {
+			log("p: " + densities[p]);
+			log("Avg BFS Nodes: " + bfsNodes[1][p]);
+			log("Avg DFS Nodes: " + dfsNodes[1][p]);
+			log("Avg Bidirectional BFS Nodes: " + bdBFSNodes[1][p]);
+			log("Avg Euclid Nodes: " + numEuclidNodes[1][p]);
+			log("Avg Manhattan Nodes: " + numManhattanNodes[1][p]);
 		}
 		
 		nodesExpanded.addSeries("BFS", bfsNodes);
@@ -850,22 +619,21 @@ public class StaticGenAndSearch {
 		solvabilityPlotApp.setVisible(true);
 	}
 
-	// Generates the dataset for plotDimSolvability. It simply calls mazeSolvability
-	// to get the solvability data generated for all algorithms at a specific dimension parameter.
+	// Generates the dataset for plotDimSolvability. It estimates the solvability curve with
+	// PercolationEstimator (the same curve all algorithms give) at a specific dimension parameter.
 	// This is repeated for dimensions 40x40, 60x60, 80x80, 100x100, 120x120, and 140x140.
 	public static DefaultXYDataset dimSolvability() {
+		return dimSolvability(MazeRandom.current().nextLong());
+	}
+
+	public static DefaultXYDataset dimSolvability(long seed) {
 		DefaultXYDataset dimData = new DefaultXYDataset();
 		
 		for (int dim = 40; dim <= 140; dim += 20) {
-			DefaultXYDataset solvability = mazeSolvability(dim);
-			double [][] solvabilityData = new double[2][50];
+			double [][] solvabilityData = PercolationEstimator.curve(dim, 1000, seed + dim, MonteCarloEngine.densities(50, 0.02));
 			for (int i = 0; i < solvabilityData[0].length; i++) {
-				solvabilityData[0][i] = solvability.getXValue(0, i);
-				solvabilityData[1][i] = solvability.getYValue(0, i);
-			}
-			for (int i = 0; i < solvabilityData[0].length; i++) {
-				System.out.println("p: " + solvabilityData[0][i]);
-				System.out.println("A* Solvability: " + solvabilityData[1][i]);
+				log("p: " + solvabilityData[0][i]);
+				log("Solvability: " + solvabilityData[1][i]);
 			}
 			dimData.addSeries("Dimension = " + dim, solvabilityData);
 		}
@@ -878,108 +646,75 @@ public class StaticGenAndSearch {
 	// method for each of those maps. Effectively, it determines the hardest map derived
 	// from a range of p values.
 	public static PathNode[][] findHardestPLevel(int dim, boolean usesDFS){ 
-		PathNode[][] hardest = null;
-		int fringeSize = 0;
-		int maxCells = 0;
-		for (int i = 0; i < 100; i++){ //generate 100 different boards from which to start generating harder children
-			cellsTraversed = 0;
-			maxFringeSize = 0;
-			double p = Math.random();
-			PathNode[][] map = generateMap(dim, p, false); //generate a map with some random occupation probability p
-			if (usesDFS){
-				map = getHardestMaze(map, true); //get the hardest map derived from the original map using fringe size as a hardness metric
-				if (maxFringeSize > fringeSize) {
-					try {
-						fringeSize = maxFringeSize;
-						hardest = deepCopy(map);
-					} catch (CloneNotSupportedException e) {
-						e.printStackTrace();
-					}
-				}
-			}else{
-				map = getHardestMaze(map, false); //get the hardest map derived from the original map using nodes expanded as a hardness metric
-				if (cellsTraversed > maxCells) {
-					try {
-						maxCells = cellsTraversed;
-						hardest = deepCopy(map);
-					} catch (CloneNotSupportedException e) {
-						e.printStackTrace();
-					}
-				}
-			}
-		}
-		cellsTraversed = maxCells; //set global vars to hold the stats of the hardest maze
-		maxFringeSize = fringeSize;
-		return hardest;
+		return findHardestPLevel(dim, usesDFS, MazeRandom.current());
+	}
+
+	// findHardestPLevel with the starting maps drawn from rng, so that the same seed always
+	// starts from the same 100 maps. The restarts run concurrently (see hardestMazeRestarts),
+	// and only the hardest maze is ever copied into a PathNode[][].
+	public static PathNode[][] findHardestPLevel(int dim, boolean usesDFS, MazeRandom rng){ 
+		MazeCandidate hardest = hardestMazeRestarts(dim, usesDFS, rng.nextLong(), Runtime.getRuntime().availableProcessors()).hardest;
+		cellsTraversed = usesDFS || hardest == null ? 0 : hardest.hardness(); //set global vars to hold the stats of the hardest maze
+		maxFringeSize = !usesDFS || hardest == null ? 0 : hardest.hardness();
+		return hardest == null ? null : hardest.toMap();
+	}
+
+	// Runs the 100 restarts of findHardestPLevel on threads threads and returns the hardest maze
+	// together with the statistics of every restart. Restart i starts from a maze drawn from
+	// stream i of seed, so the hardest maze does not depend on the number of threads.
+	public static HardestMazeRestarts.Result hardestMazeRestarts(int dim, boolean usesDFS, long seed, int threads) {
+		return hardestMazeRestarts(dim, usesDFS, seed, threads, Integer.MAX_VALUE);
+	}
+
+	// The same with every climb stopped after maxSteps steps, which lets restarts that cannot
+	// beat the best so far within their remaining steps give up early.
+	public static HardestMazeRestarts.Result hardestMazeRestarts(int dim, boolean usesDFS, long seed, int threads, int maxSteps) {
+		return new HardestMazeRestarts(new HardMazeSearch(null, usesDFS), threads, maxSteps).run(dim, 100, seed);
 	}
 
 	// getHardestMaze uses the hill climbing local search algorithm to take in an original map,
 	// compute its neighbors, and calculate the hardest neighbor by solving them all via
 	// DFS or A*-Manhattan (depending on usesDFS) and measuring the maxFringeSize/number
-	// of nodes expanded, respectively.
+	// of nodes expanded, respectively. The climb itself runs in HardMazeSearch.climb on
+	// MazeCandidates; the original map is not modified and the hardest maze is returned as a
+	// new map.
 	public static PathNode[][] getHardestMaze(PathNode[][] original, boolean usesDFS) {//NOTE: when calling, the original maze must be solvable
-		PathNode[][] prev = null;
-		while (original != null) { //while the helper function is able to return some harder child of the original maze
-			try {
-				prev = deepCopy(original); //copy that harder maze
-			} catch (CloneNotSupportedException e) {
-				e.printStackTrace();
-			}
-			original = helperFindHardest(original, usesDFS); //find a harder maze
-		}
-		return prev; //return the hardest saved maze
+		MazeCandidate hardest = HardMazeSearch.common(usesDFS).climb(PackedMaze.fromMap(original).withoutFire());
+		cellsTraversed = usesDFS ? 0 : hardest.hardness(); //the globals report the stats of the returned maze
+		maxFringeSize = usesDFS ? hardest.hardness() : 0;
+		return hardest.toMap(); //return the hardest saved maze
 	}
 
 	// Helper method for getHardestMaze that helps accomplish the task explained in getHardestMaze.
-	// Finds hardest child of current maze.
+	// Finds hardest child of current maze. The dim*dim children are solved in parallel by
+	// HardMazeSearch on a packed copy of current, which is left unchanged; the hardest child is
+	// the same one the cell-by-cell loop would pick (the first cell in row-major order on a tie).
 	public static PathNode[][] helperFindHardest(PathNode[][] current, boolean usesDFS){ //find the hardest child of the current maze
-		maxFringeSize = 0;
-		cellsTraversed = 0;
 		int mostCellsTraversed = 0;
 		int maxFringe = 0;
+		PackedMaze maze = PackedMaze.fromMap(current);
+		int toBeat;
+		if (usesDFS) { //use the fringe size of DFS as the hardness metric
+			toBeat = maxFringe = searchDFS(maze).maxFringe(); //fringe size of the original maze
+		}else{ //uses A*, with the number of nodes expanded as the hardness metric
+			toBeat = mostCellsTraversed = searchAStar(maze, maze.start(), maze.goal(), false).nodesExpanded(); //number of nodes expanded by original maze
+		}
+		HardMazeSearch.Flip child = HardMazeSearch.common(usesDFS).hardestChild(maze, toBeat);
 		PathNode[][] hardest = null;
-		if (usesDFS) { //use the # of nodes expanded by DFS as the hardness metric
-			DepthFirstSearch(current);
-			maxFringe = maxFringeSize; //fringe size of the original maze
-			for (int i = 0; i < current.length; i++) {
-				for (int j = 0; j < current.length; j++) {
-					maxFringeSize = 0;
-					resetMap(current); //allow the current hardest board to be traversed again
-					current[i][j].isEmpty = !current[i][j].isEmpty; //change the occupation status of one node
-					PathNode goal = DepthFirstSearch(current);
-					if (maxFringeSize > maxFringe && goal != null) { //current child is the hardest child thus far/its fringe is larger than max fringe
-						try {
-							hardest  = deepCopy(current);
-							maxFringe = maxFringeSize;
-						} catch (CloneNotSupportedException e) { //should not occur
-							e.printStackTrace();
-						}
-					}
-					current[i][j].isEmpty = !current[i][j].isEmpty;
-				} 
+		if (child != null) {
+			if (usesDFS) {
+				maxFringe = child.hardness;
+			} else {
+				mostCellsTraversed = child.hardness;
 			}
-		}else{ //uses A* 
-			AStar(current, false);
-			mostCellsTraversed = cellsTraversed; //number of nodes expanded by original maze
-			for (int i = 0; i < current.length; i++) {
-				for (int j = 0; j < current.length; j++) {
-					cellsTraversed = 0;
-					resetMap(current); //allow the current hardest board to be traversed again
-					current[i][j].isEmpty = !current[i][j].isEmpty; //change the occupation status of one node
-					PathNode goal = AStar(current, false);
-					if (cellsTraversed > mostCellsTraversed && goal != null) { //current child is the hardest child thus far
-						try {
-							hardest  = deepCopy(current);
-							mostCellsTraversed = cellsTraversed;
-						} catch (CloneNotSupportedException e) { //should not occur
-							e.printStackTrace();
-						}
-					}
-					current[i][j].isEmpty = !current[i][j].isEmpty;
-				} 
+			try {
+				hardest = deepCopy(current);
+				hardest[child.cell / current.length][child.cell % current.length].isEmpty ^= true; //change the occupation status of one node
+			} catch (CloneNotSupportedException e) { //should not occur
+				e.printStackTrace();
 			}
 		}
-		cellsTraversed = mostCellsTraversed;
+		cellsTraversed = mostCellsTraversed; //the globals report the stats of the hardest child to getHardestMaze
 		maxFringeSize = maxFringe;
 		return hardest;
 	}
@@ -1002,6 +737,12 @@ public class StaticGenAndSearch {
 	// fireSpreads is called during every time step in order to simulate the spread of
 	// the fire based on the cells already on fire and the flammability rate q.
 	public static PathNode[][] fireSpreads (PathNode [][] map, double q) {
+		return fireSpreads(map, q, MazeRandom.current());
+	}
+
+	// fireSpreads with the randomness drawn from rng, so that a fire run can be repeated
+	// exactly from its seed.
+	public static PathNode[][] fireSpreads (PathNode [][] map, double q, MazeRandom rng) {
 			boolean [][] onFireNext = new boolean [map.length][map.length];
 			//q = flammability rate of fire
 			//multiple cells can become on fire per move
@@ -1027,7 +768,7 @@ public class StaticGenAndSearch {
 					}
 	
 					double onFire = 1-(Math.pow(1-q, numNbrFire));
-					double random = Math.random();
+					double random = rng.nextDouble();
 					if (random <= onFire) {
 						onFireNext[i][j] = true;
 					}
@@ -1043,30 +784,91 @@ public class StaticGenAndSearch {
 			return map;
 		}
 
+	// fireSpreads on a PackedMaze. Since a PackedMaze is immutable, it returns a new maze that
+	// shares the obstacle words of the input and has the updated fire words. Every open cell
+	// that is not on fire catches fire with probability 1-(1-q)^k, where k is its number of
+	// burning neighbors. Cells with no burning neighbors cannot catch fire and are skipped.
+	public static PackedMaze fireSpreads (PackedMaze maze, double q) {
+		return fireSpreads(maze, q, MazeRandom.current());
+	}
+
+	public static PackedMaze fireSpreads (PackedMaze maze, double q, MazeRandom rng) {
+		int dim = maze.dim;
+		long[] onFireNext = maze.onFire.clone();
+		for (int cell = 0; cell < maze.cellCount(); cell++) {
+			if (!maze.isOpen(cell)) {
+				continue;
+			}
+			int row = cell / dim, col = cell % dim;
+			int numNbrFire = 0;
+			if (row+1 < dim && maze.isOnFire(cell+dim)) {
+				numNbrFire++;
+			}
+			if (col+1 < dim && maze.isOnFire(cell+1)) {
+				numNbrFire++;
+			}
+			if (row-1 >= 0 && maze.isOnFire(cell-dim)) {
+				numNbrFire++;
+			}
+			if (col-1 >= 0 && maze.isOnFire(cell-1)) {
+				numNbrFire++;
+			}
+			if (numNbrFire == 0) {
+				continue;
+			}
+			double onFire = 1-(Math.pow(1-q, numNbrFire));
+			if (rng.nextDouble() <= onFire) {
+				onFireNext[cell >>> 6] |= 1L << cell;
+			}
+		}
+		return new PackedMaze(dim, maze.blocked, onFireNext);
+	}
+
 	//Method to implement Strategy 1: compute shortest path to goal at the start of the maze and move towards goal, ignoring fire movement
 	//Initial shortest path is generated with A* Manhattan Distance and takes into account the initial position of the fire
 	//initialFireMap must be solvable initially
 	//You make the first move, fire makes the second move
 	//Exit the maze or burn
 	public static boolean ignoreFireSpreading (PathNode [][] initialFireMap, PathNode goal, double flammabilityOfFire) throws Exception {
+		return ignoreFireSpreading(initialFireMap, goal, flammabilityOfFire, MazeRandom.current(), FireEngine.Kind.FRONTIER, StepObserver.GUI);
+	}
+
+	public static boolean ignoreFireSpreading (PathNode [][] initialFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng) throws Exception {
+		return ignoreFireSpreading(initialFireMap, goal, flammabilityOfFire, rng, FireEngine.Kind.FRONTIER);
+	}
+
+	// engine chooses how the fire is spread (see FireEngine); the others use FRONTIER.
+	public static boolean ignoreFireSpreading (PathNode [][] initialFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng, FireEngine.Kind engine) throws Exception {
+		return ignoreFireSpreading(initialFireMap, goal, flammabilityOfFire, rng, engine, StepObserver.NO_OP);
+	}
+
+	// observer is told about every move (see StepObserver). The overloads with an rng tell no
+	// one, and the one without draws every move in a window as main does.
+	public static boolean ignoreFireSpreading (PathNode [][] initialFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng, FireEngine.Kind engine, StepObserver observer) throws Exception {
 		boolean success = true;
 		if (goal == null) {
 			throw new Exception ("maze is not initially solvable");
 		}
+		String algorithm = "Strategy 1: Ignore Fire";
+		FireEngine fire = engine.start(initialFireMap, flammabilityOfFire); //keeps the isOnFire flags of the map up to date
 		LinkedList<PathNode> path = generateSolvedPath(goal, null);
 		PathNode currentPosition = path.pop(); //start at starting position
+		int time = 0;
 		while (currentPosition != initialFireMap[initialFireMap.length - 1][initialFireMap.length - 1]) { //termination conditions
 			if (currentPosition.isOnFire) {
 				success = false;
-				System.out.println(success);
+				log(String.valueOf(success));
+				observer.finished(algorithm, time, success);
 				return success;
 			}
 			currentPosition = path.pop();
-			fireSpreads(initialFireMap, flammabilityOfFire);
-			printMazeSolutionGUI(initialFireMap, goal, currentPosition, "Strategy 1: Ignore Fire");
-			
+			time++;
+			observer.personMoved(algorithm, time, initialFireMap, currentPosition, goal);
+			fire.step(rng);
+			observer.fireSpread(algorithm, time, initialFireMap, currentPosition, goal, fire);
 		}
-		System.out.println(success);
+		log(String.valueOf(success));
+		observer.finished(algorithm, time, success);
 		return success;
 	}
 		
@@ -1075,39 +877,107 @@ public class StaticGenAndSearch {
 	//You make the first move, fire makes the second move
 	//If you burn or can't reach the goal anymore, you die
 	public static boolean avoidFireSpreading (PathNode [][] newFireMap, PathNode goal, double flammabilityOfFire) throws Exception {
-		boolean success = true;
+		return avoidFireSpreading(newFireMap, goal, flammabilityOfFire, MazeRandom.current(), FireEngine.Kind.FRONTIER, StepObserver.GUI);
+	}
+
+	public static boolean avoidFireSpreading (PathNode [][] newFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng) throws Exception {
+		return avoidFireSpreading(newFireMap, goal, flammabilityOfFire, rng, FireEngine.Kind.FRONTIER);
+	}
+
+	// engine chooses how the fire is spread (see FireEngine); the others use FRONTIER.
+	public static boolean avoidFireSpreading (PathNode [][] newFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng, FireEngine.Kind engine) throws Exception {
+		return avoidFireSpreading(newFireMap, goal, flammabilityOfFire, rng, engine, StepObserver.NO_OP);
+	}
+
+	// observer is told about every move (see StepObserver), as for ignoreFireSpreading.
+	public static boolean avoidFireSpreading (PathNode [][] newFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng, FireEngine.Kind engine, StepObserver observer) throws Exception {
+		return followReplannedPath(newFireMap, goal, flammabilityOfFire, rng, engine, observer, false, 0, "Strategy 2: Avoid Fire");
+	}
+
+	private static final int FIELD_REFRESH = 10; //steps between reads of the FireArrivalField of Strategy 4
+
+	// The loop of Strategies 2 and 3. The person makes the first move along the initial path
+	// from goal, then the fire moves, and from then on every move follows a path that a
+	// FireReplanner repairs after each fire step instead of searching the whole maze again.
+	// For Strategy 3 (predictsFire) the replanner makes a cell cost more the more likely it is
+	// to catch fire in the next step, which is what the predictive heuristic of AStarPredict
+	// steers toward; with fieldSamples > 0 (Strategy 4) it also reads a FireArrivalField of that
+	// many runs, asked for again every FIELD_REFRESH steps for the fire as it is then. A field
+	// costs fieldSamples runs of the fire, so it is not read after every step; when the fire has
+	// not spread since the last read, FireArrivalField.of returns the same field and the
+	// planner keeps its charges. The path is only linked into the map's prev pointers for
+	// observers that draw it.
+	private static boolean followReplannedPath (PathNode [][] map, PathNode goal, double flammabilityOfFire, MazeRandom rng, FireEngine.Kind engine, StepObserver observer, boolean predictsFire, int fieldSamples, String algorithm) throws Exception {
 		if (goal == null) {
 			throw new Exception ("maze is not initially solvable");
 		}
+		int dim = map.length;
+		FireEngine fire = engine.start(map, flammabilityOfFire); //keeps the isOnFire flags of the map up to date
+		FireReplanner planner = null;
+		FireArrivalField field = null; //of the fire as it was when the planner last read it
+		long fieldSeed = MazeRandom.forStream(rng.seed(), 1).seed();
 		LinkedList<PathNode> path = generateSolvedPath(goal, null);
 		PathNode currentPosition = path.pop(); //start at starting position
-		while (currentPosition != newFireMap[newFireMap.length - 1][newFireMap.length - 1]) { //termination conditions
+		int time = 0;
+		while (currentPosition != map[dim - 1][dim - 1]) { //termination conditions
 			if (currentPosition.isOnFire) {
-				System.out.println("burned");
-				return success = false;
-			}
-			currentPosition = path.pop(); //person makes the first move
-			
-			printMazeSolutionGUI(newFireMap, goal, currentPosition, "Strategy 2: Avoid Fire"); //print the move of the person
-			fireSpreads(newFireMap, flammabilityOfFire);
-			printMazeSolutionGUI(newFireMap, goal, currentPosition, "Strategy 2: Avoid Fire"); //print the move of the fire
+				log("burned");
+				observer.finished(algorithm, time, false);
+				return false;
+			}
+			if (planner == null) {
+				currentPosition = path.pop(); //person makes the first move
+			} else {
+				int next = planner.nextCell();
+				currentPosition = map[next / dim][next % dim];
+			}
+			time++;
+			observer.personMoved(algorithm, time, map, currentPosition, goal);
+			fire.step(rng);
+			observer.fireSpread(algorithm, time, map, currentPosition, goal, fire);
 			if (currentPosition.isOnFire) { //after fire moves, re-check to see if you've burned
-				System.out.println("burned");
-				return success = false;
+				log("burned");
+				observer.finished(algorithm, time, false);
+				return false;
+			}
+			int cell = currentPosition.row * dim + currentPosition.col;
+			if (planner == null && fieldSamples > 0) {
+				field = FireArrivalField.of(fire.maze(), flammabilityOfFire, fieldSamples, fieldSeed);
+				planner = new FireReplanner(fire, cell, dim * dim - 1, field);
+			} else if (planner == null) {
+				planner = new FireReplanner(fire, cell, dim * dim - 1, predictsFire);
+			} else {
+				planner.update(cell, fire.newFires());
+				if (field != null && time % FIELD_REFRESH == 0) {
+					FireArrivalField now = FireArrivalField.of(fire.maze(), flammabilityOfFire, fieldSamples, fieldSeed);
+					if (now != field) { //the fire spread since the field was read
+						field = now;
+						planner.lookAhead(field);
+					}
+				}
 			}
-			resetMap(newFireMap);
-			
-			goal = AStarForFire(currentPosition, newFireMap[newFireMap.length-1][newFireMap.length-1], newFireMap, true);
-			if (goal == null) {
-				System.out.println("no more paths to goal");
-				return success = false;
+			if (planner.nextCell() < 0 && cell != dim * dim - 1) {
+				log("no more paths to goal");
+				observer.finished(algorithm, time, false);
+				return false;
 			}
-			path = generateSolvedPath(goal, null);
+			if (observer.drawsPath()) {
+				goal = linkPath(map, planner.path());
+			}
+		}
+		observer.finished(algorithm, time, true);
+		return true;
+	}
 
-			currentPosition = path.pop();
-			
+	// Sets the prev pointers of map along a path of cell ids, so it can be drawn, and returns
+	// its last node.
+	private static PathNode linkPath (PathNode [][] map, int[] cells) {
+		resetMap(map);
+		int dim = map.length;
+		for (int i = 1; i < cells.length; i++) {
+			map[cells[i] / dim][cells[i] % dim].prev = map[cells[i-1] / dim][cells[i-1] % dim];
 		}
-		return success;
+		return map[cells[cells.length-1] / dim][cells[cells.length-1] % dim];
 	}
 
 	// This method is called by Strategies 1 and 2 for solving fire mazes. The difference
@@ -1115,83 +985,15 @@ public class StaticGenAndSearch {
 	// start and goal nodes rather than assuming the fixed upper left and lower right 
 	// positions used by the other AStar method.
 	public static PathNode AStarForFire (PathNode start, PathNode goal, PathNode[][]map, boolean usesEuclidean) {
-		if (map == null || map[0] == null || map[0].length == 0) return null;  //map isn't constructed in a valid way
-		boolean[][] visited = new boolean[map.length][map.length];
-		int[][]distance = new int[map.length][map.length]; //distance (# of operations) from start to PathNode at distance[i][j]
-		for (int i = 0; i < visited.length; i++) {
-			for (int j = 0; j < visited.length; j++) {
-				visited[i][j] = false;
-				distance[i][j] = -1;
-			}
-		}
-		distance[start.row][start.col] = 0;
-		PriorityQueue<PathNode> fringe = new PriorityQueue<PathNode>();
-		fringe.add(start);
-		maxFringeSize = Math.max(maxFringeSize, fringe.size());
-		start.prev = null;
-		start.distanceEst = 0;
-		while (!fringe.isEmpty()) {
-			PathNode curr = fringe.poll();
-			visited[curr.row][curr.col] = true;
-			cellsTraversed++;
-			if (curr.equals(goal)) {
-				maxFringeSize = Math.max(maxFringeSize, fringe.size());
-				return curr;
-			}else{
-				fringe = updateFringeWithHeuristicFire(fringe, map, curr, visited, usesEuclidean, distance, goal); 
-				maxFringeSize = Math.max(maxFringeSize, fringe.size());
-			}
-		}
-		return null;
+		return addToTotals(searchAStarForFire(start, goal, map, usesEuclidean));
 	}
-	
-	// This is used by AStarForFire. The only difference between this and updateFringeWithHeuristic
-	// is that the Manhattan and Euclidean distances are computed using the parameterized curr and goal
-	// PathNodes rather than hard-coding them to be the upper left and lower right PathNodes.
-	public static PriorityQueue<PathNode> updateFringeWithHeuristicFire(PriorityQueue<PathNode> fringe, PathNode[][] map, PathNode curr, boolean[][] visited, boolean usesEuclidean, int[][]distance, PathNode goal){
-		int rowIndex = curr.row;
-		int colIndex = curr.col;
-		if (rowIndex+1 < map.length && map[rowIndex+1][colIndex].isEmpty && !map[rowIndex+1][colIndex].isOnFire && map[rowIndex+1][colIndex].prev == null && !visited[rowIndex+1][colIndex]) { //moving down is a non-repeated, viable choice (node not already in fringe or visited)
-			map[rowIndex+1][colIndex].prev = curr;
-			distance[rowIndex+1][colIndex] = distance[rowIndex][colIndex]+1; //distance to child = distance to parent + one additional operation
-			if (usesEuclidean) {
-				map[rowIndex+1][colIndex].distanceEst = distance[rowIndex+1][colIndex] + Math.sqrt((Math.pow((rowIndex+1)-(goal.row), 2)) + (Math.pow((colIndex)-(goal.col), 2))); //add Euclidean distance heuristic to goal to the current distance from start to node
-			}else{
-				map[rowIndex+1][colIndex].distanceEst = distance[rowIndex+1][colIndex] + Math.abs(((rowIndex+1)-(goal.row)) + (colIndex-(goal.col))); //add Manhattan distance heuristic to the current distance from start to node
-			}
-			fringe.add(map[rowIndex+1][colIndex]);
-		}
-		if (colIndex+1 < map.length && map[rowIndex][colIndex+1].isEmpty && !map[rowIndex][colIndex+1].isOnFire && map[rowIndex][colIndex+1].prev == null && !visited[rowIndex][colIndex+1]) { //moving right is a non-repeated, viable choice
-			map[rowIndex][colIndex+1].prev = curr;
-			distance[rowIndex][colIndex+1] = distance[rowIndex][colIndex]+1; //distance to child = distance to parent + one additional operation
-			if (usesEuclidean) {
-				map[rowIndex][colIndex+1].distanceEst = distance[rowIndex][colIndex+1] + Math.sqrt((Math.pow((rowIndex)-(goal.row), 2)) + (Math.pow((colIndex+1)-(goal.col), 2))); //add Euclidean distance heuristic to goal to the current distance from start to node
-			}else{
-				map[rowIndex][colIndex+1].distanceEst = distance[rowIndex][colIndex+1] + Math.abs(((rowIndex)-(goal.row)) + ((colIndex+1)-(goal.col))); //add Manhattan distance heuristic to the current distance from start to node
-			}
-			fringe.add(map[rowIndex][colIndex+1]);
-		}
-		if (rowIndex-1 >= 0 && map[rowIndex-1][colIndex].isEmpty && !map[rowIndex-1][colIndex].isOnFire && map[rowIndex-1][colIndex].prev == null && !visited[rowIndex-1][colIndex]) { //moving up is a non-repeated, viable choice
-			map[rowIndex-1][colIndex].prev = curr;
-			distance[rowIndex-1][colIndex] = distance[rowIndex][colIndex]+1; //distance to child = distance to parent + one additional operation
-			if (usesEuclidean) {//Euclidean distance is the heuristic
-				map[rowIndex-1][colIndex].distanceEst = distance[rowIndex-1][colIndex] + Math.sqrt((Math.pow((rowIndex-1)-(goal.row), 2)) + (Math.pow((colIndex)-(goal.col), 2))); //add Euclidean distance heuristic to goal to the current distance from start to node
-			}else{ //use Manhattan distance
-				map[rowIndex-1][colIndex].distanceEst = distance[rowIndex-1][colIndex] + Math.abs(((rowIndex-1)-(goal.row)) + (colIndex-(goal.col))); //add Manhattan distance heuristic to the current distance from start to node
-			}
-			fringe.add(map[rowIndex-1][colIndex]);
-		}
-		if (colIndex-1 >= 0 && map[rowIndex][colIndex-1].isEmpty && !map[rowIndex][colIndex-1].isOnFire && map[rowIndex][colIndex-1].prev == null && !visited[rowIndex][colIndex-1]) { //moving left is a non-repeated, viable choice
-			map[rowIndex][colIndex-1].prev = curr;
-			distance[rowIndex][colIndex-1] = distance[rowIndex][colIndex]+1; //distance to child = distance to parent + one additional operation
-			if (usesEuclidean) {
-				map[rowIndex][colIndex-1].distanceEst = distance[rowIndex][colIndex-1] + Math.sqrt((Math.pow((rowIndex)-(goal.row), 2)) + (Math.pow((colIndex-1)-(goal.col), 2))); //add Euclidean distance heuristic to goal to the current distance from start to node
-			}else{
-				map[rowIndex][colIndex-1].distanceEst = distance[rowIndex][colIndex-1] + Math.abs(((rowIndex)-(goal.row)) + ((colIndex-1)-(goal.col))); //add Manhattan distance heuristic to the current distance from start to node
-			}
-			fringe.add(map[rowIndex][colIndex-1]);
-		}
-		return fringe;
+
+	public static SearchResult searchAStarForFire (PathNode start, PathNode goal, PathNode[][]map, boolean usesEuclidean) {
+		long startTime = System.nanoTime();
+		if (map == null || map[0] == null || map[0].length == 0) return new SearchResult(null, 0, 0, 0);  //map isn't constructed in a valid way
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		PathNode found = workspace.aStar(map, start, goal, usesEuclidean, null);
+		return new SearchResult(found, workspace.nodesExpanded, workspace.maxFringe, System.nanoTime() - startTime);
 	}
 
 	// Represents Strategy 3 for solving the fire maze. Effectively, it calls a modified
@@ -1203,154 +1005,59 @@ public class StaticGenAndSearch {
 	// is greater than the Manhattan Distance, the Manhattan distance will be used as a 
 	// heuristic. Therefore, nodes with no risk of catching on fire in the next time step will be given a bias
 	// by A*.
+	// After the first move the path is repaired by a FireReplanner that charges each cell
+	// 1 + its risk (see followReplannedPath), which keeps the same bias toward safe cells.
 	public static boolean predictFire (PathNode [][] newFireMap, PathNode goal, double flammabilityOfFire) throws Exception {
-		boolean success = true;
-		if (goal == null) {
-			throw new Exception ("maze is not initially solvable");
-		}
-		LinkedList<PathNode> path = generateSolvedPath(goal, null);
-		PathNode currentPosition = path.pop(); //start at starting position
-		while (currentPosition != newFireMap[newFireMap.length - 1][newFireMap.length - 1]) { //termination conditions
-			if (currentPosition.isOnFire) {
-				System.out.println("burned");
-				return success = false;
-			}
-			currentPosition = path.pop(); //person makes the first move
-			printMazeSolutionGUI(newFireMap, goal, currentPosition, "Strategy 3: Predict Fire"); //print the move of the person
-			fireSpreads(newFireMap, flammabilityOfFire);
-			printMazeSolutionGUI(newFireMap, goal, currentPosition, "Strategy 3: Predict Fire"); //print the move of the fire
-			if (currentPosition.isOnFire) { //after fire moves, re-check to see if you've burned
-				System.out.println("burned");
-				return success = false;
-			}
-			resetMap(newFireMap);
-			goal = AStarPredict(newFireMap, flammabilityOfFire, currentPosition, goal);
-			if (goal == null) {
-				System.out.println("no more paths to goal");
-				return success = false;
-			}
-			path = generateSolvedPath(goal, null);
-			currentPosition = path.pop();
-		}
-		return success;
+		return predictFire(newFireMap, goal, flammabilityOfFire, MazeRandom.current(), FireEngine.Kind.FRONTIER, StepObserver.GUI);
+	}
+
+	public static boolean predictFire (PathNode [][] newFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng) throws Exception {
+		return predictFire(newFireMap, goal, flammabilityOfFire, rng, FireEngine.Kind.FRONTIER);
+	}
+
+	// engine chooses how the fire is spread (see FireEngine); the others use FRONTIER.
+	public static boolean predictFire (PathNode [][] newFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng, FireEngine.Kind engine) throws Exception {
+		return predictFire(newFireMap, goal, flammabilityOfFire, rng, engine, StepObserver.NO_OP);
+	}
+
+	// observer is told about every move (see StepObserver), as for ignoreFireSpreading.
+	public static boolean predictFire (PathNode [][] newFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng, FireEngine.Kind engine, StepObserver observer) throws Exception {
+		return followReplannedPath(newFireMap, goal, flammabilityOfFire, rng, engine, observer, true, 0, "Strategy 3: Predict Fire");
+	}
+
+	// Strategy 4: Strategy 3 looking further ahead. After the first move, and again every
+	// FIELD_REFRESH steps, the fire is simulated fieldSamples times from where it then burns (a
+	// FireArrivalField), and the replanner also charges every cell for its chance of burning by
+	// the time the person could get there, so the person keeps away from where the fire is
+	// heading as well as from where it is. The simulations use a seed of their own derived from
+	// rng's, so they never draw from the fire the person faces.
+	public static boolean planAheadOfFire (PathNode [][] newFireMap, PathNode goal, double flammabilityOfFire, MazeRandom rng, FireEngine.Kind engine, StepObserver observer, int fieldSamples) throws Exception {
+		return followReplannedPath(newFireMap, goal, flammabilityOfFire, rng, engine, observer, true, fieldSamples, "Strategy 4: Plan Ahead");
 	}
 	
-	// This version of AStar is used for strategy 3 of the fire maze. It calls the 
-	// updatePredictiveHeuristic method in order to guided by a different heuristic
-	// than the other AStar methods. Rather than choosing between Euclidean and Manhattan,
-	// this uses a separate heuristic generated by a combination of those metrics so that
-	// it takes the risk of a node catching on fire in the next time step into account.
+	// This version of AStar is used for strategy 3 of the fire maze. It is guided by a
+	// different heuristic than the other AStar methods. Rather than choosing between
+	// Euclidean and Manhattan, this uses a separate heuristic generated by a combination
+	// of those metrics so that it takes the risk of a node catching on fire in the next
+	// time step into account (see SearchWorkspace.predictiveEstimate).
 	public static PathNode AStarPredict(PathNode [][] map, double flammabilityOfFire, PathNode start, PathNode goal) {
-		boolean[][] visited = new boolean[map.length][map.length];
-		int[][]distance = new int[map.length][map.length];
+		return searchAStarPredict(map, flammabilityOfFire, start, goal).goal();
+	}
+
+	public static SearchResult searchAStarPredict(PathNode [][] map, double flammabilityOfFire, PathNode start, PathNode goal) {
+		long startTime = System.nanoTime();
 		double[][] probabilities = computeFireProbability (map, flammabilityOfFire);
-		
-	    PriorityQueue <PathNode> fringe = new PriorityQueue<PathNode>();
-		fringe.add(start);
-		start.prev = null;
-		start.distanceEst = 0;
-		while (!fringe.isEmpty()) {
-			PathNode curr = fringe.poll();
-			visited[curr.row][curr.col] = true;
-			if (curr == goal) {
-				return curr;
-			}
-			fringe = updatePredictiveHeuristic(map, visited, probabilities, distance, curr, goal, fringe);
-		}
-		return null;
-	}
-
-	// This is for strategy 3 for fire maze. It sets the heuristic to be equal to
-	// distance + max((1+risk)*euclidDist, manhattanDist). Nodes with no risk of fire
-	// in next step simplify to comparison of Euclidean distances, but those that have
-	// risk of fire are penalized by being given their Manhattan distances, instead. 
-	// This gives the illusion of being further away while maintaining an underestimate,
-	// thus retaining A*'s validity while encouraging safer paths.
-	public static PriorityQueue <PathNode> updatePredictiveHeuristic (PathNode [][] map, boolean [][] visited, double [][] probabilities, int[][]distance, PathNode curr, PathNode goal, PriorityQueue<PathNode> fringe) {
-		int rowIndex = curr.row;
-		int colIndex = curr.col;
-		if (rowIndex+1 < map.length && map[rowIndex+1][colIndex].isEmpty && !map[rowIndex+1][colIndex].isOnFire && map[rowIndex+1][colIndex].prev == null  && !visited[rowIndex+1][colIndex]) {
-			map[rowIndex+1][colIndex].prev = curr;
-			distance[rowIndex+1][colIndex] = distance[rowIndex][colIndex]+1;
-			double euclDis = Math.sqrt((Math.pow((rowIndex+1)-(map.length-1), 2)) + (Math.pow((colIndex)-(map.length-1), 2)));
-			double manDis = Math.abs(((rowIndex+1)-(goal.row)) + (colIndex-(goal.col)));
-			if (euclDis * probabilities[rowIndex+1][colIndex] + euclDis < manDis) {
-				map[rowIndex+1][colIndex].distanceEst = distance[rowIndex+1][colIndex] + (euclDis * probabilities[rowIndex+1][colIndex]) + euclDis;
-			}
-			else {
-				map[rowIndex+1][colIndex].distanceEst = distance[rowIndex+1][colIndex] + manDis;
-			}
-			fringe.add(map[rowIndex+1][colIndex]);
-		}
-		if (colIndex+1 < map.length && map[rowIndex][colIndex+1].isEmpty && !map[rowIndex][colIndex+1].isOnFire && map[rowIndex][colIndex+1].prev == null  && !visited[rowIndex][colIndex+1]) {
-			map[rowIndex][colIndex+1].prev = curr;
-			distance[rowIndex][colIndex+1] = distance[rowIndex][colIndex]+1;
-			double euclDis = Math.sqrt((Math.pow((rowIndex)-(map.length-1), 2)) + (Math.pow((colIndex+1)-(map.length-1), 2)));
-			double manDis = Math.abs(((rowIndex)-(goal.row)) + (colIndex+1-(goal.col)));
-			if (euclDis * probabilities[rowIndex][colIndex+1] + euclDis < manDis) {
-				map[rowIndex][colIndex+1].distanceEst = distance[rowIndex][colIndex+1] + (euclDis * probabilities[rowIndex][colIndex+1]) + euclDis;
-			}
-			else {
-				map[rowIndex][colIndex+1].distanceEst = distance[rowIndex][colIndex+1] + manDis;
-			}
-			fringe.add(map[rowIndex][colIndex+1]);
-		}
-		if (rowIndex-1 >= 0 && map[rowIndex-1][colIndex].isEmpty && !map[rowIndex-1][colIndex].isOnFire && map[rowIndex-1][colIndex].prev == null  && !visited[rowIndex-1][colIndex]) {
-			map[rowIndex-1][colIndex].prev = curr;
-			distance[rowIndex-1][colIndex] = distance[rowIndex][colIndex]+1;
-			double euclDis = Math.sqrt((Math.pow((rowIndex-1)-(map.length-1), 2)) + (Math.pow((colIndex)-(map.length-1), 2)));
-			double manDis = Math.abs(((rowIndex-1)-(goal.row)) + (colIndex-(goal.col)));
-			if (euclDis * probabilities[rowIndex-1][colIndex] + euclDis < manDis) {
-				map[rowIndex-1][colIndex].distanceEst = distance[rowIndex-1][colIndex] + (euclDis * probabilities[rowIndex-1][colIndex]) + euclDis;
-			}
-			else {
-				map[rowIndex-1][colIndex].distanceEst = distance[rowIndex-1][colIndex] + manDis;
-			}
-			fringe.add(map[rowIndex-1][colIndex]);
-		}
-		if (colIndex-1 >= 0 && map[rowIndex][colIndex-1].isEmpty && !map[rowIndex][colIndex-1].isOnFire && map[rowIndex][colIndex-1].prev == null  && !visited[rowIndex][colIndex-1]) {
-			map[rowIndex][colIndex-1].prev = curr;
-			distance[rowIndex][colIndex-1] = distance[rowIndex][colIndex]+1;
-			double euclDis = Math.sqrt((Math.pow((rowIndex)-(map.length-1), 2)) + (Math.pow((colIndex-1)-(map.length-1), 2)));
-			double manDis = Math.abs(((rowIndex)-(goal.row)) + (colIndex-1-(goal.col)));
-			if (euclDis * probabilities[rowIndex][colIndex-1] + euclDis < manDis) {
-				map[rowIndex][colIndex-1].distanceEst = distance[rowIndex][colIndex-1] + (euclDis * probabilities[rowIndex][colIndex-1]) + euclDis;
-			}
-			else {
-				map[rowIndex][colIndex-1].distanceEst = distance[rowIndex][colIndex-1] + manDis;
-			}
-			fringe.add(map[rowIndex][colIndex-1]);
-		}
-		return fringe;
+		SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+		PathNode found = workspace.aStar(map, start, goal, false, probabilities);
+		return new SearchResult(found, workspace.nodesExpanded, workspace.maxFringe, System.nanoTime() - startTime);
 	}
 
 	// Computes the probability of each square in the maze of catching on fire
 	// Blocked or fire squares have a probability of 0.0 by default
+	// The fire strategies read the same numbers from their engine's FireRiskMap, which is
+	// kept up to date as the fire spreads instead of being recomputed.
 	public static double[][] computeFireProbability (PathNode [][] map, double flammability) {
-	    double [][] fireProbability = new double [map.length][map.length];
-	    for (int i = 0; i < map.length; i++) {
-	        for (int j = 0; j < map.length; j++) {
-	            int numNbrFire = 0;
-	            if (!map[i][j].isEmpty || map[i][j].isOnFire) {
-	                continue;
-	            }
-	            if (i+1 < map.length && map[i+1][j].isOnFire) {
-	                numNbrFire++;
-	            }
-	            if (j+1 < map.length && map[i][j+1].isOnFire) {
-	                numNbrFire++;
-	            }
-	            if (i-1 >= 0 && map[i-1][j].isOnFire) {
-	                numNbrFire++;
-	            }
-	            if (j-1 >= 0 && map[i][j-1].isOnFire) {
-	                numNbrFire++;
-	            }
-	            double onFire = 1-(Math.pow(1-flammability, numNbrFire));
-	            fireProbability[i][j] = onFire;
-	        }
-	    }
-	    return fireProbability;
+		return new FireRiskMap(PackedMaze.fromMap(map), flammability).toArray();
 	}
 
 	// Helper method to find the location of the initial fire, given a map that has been
@@ -1403,91 +1110,52 @@ public class StaticGenAndSearch {
 	// the number of the total mazes that return solutions. That value is divided by 1000 to get the
 	// decimal value of solvability between 0 and 1.
 	public static DefaultXYDataset fireMazeSolvability () throws Exception {
+		return fireMazeSolvability(MazeRandom.current().nextLong());
+	}
+
+	// fireMazeSolvability with a fixed seed. Every (q, trial) pair draws its maze and its fire
+	// from its own stream of the seed, so a single odd trial can be regenerated on its own. The
+	// trials run in parallel on FireStrategyEvaluator, which gives the three strategies the same
+	// maze and the same fire in each trial.
+	public static DefaultXYDataset fireMazeSolvability (long seed) throws Exception {
+		return fireMazeSolvability(seed, 0);
+	}
+
+	// The evaluator of fireMazeSolvability: 100x100 mazes of density 0.28, with the fire spread
+	// by FRONTIER, and Strategy 4 if fieldSamples > 0. Its failures can be replayed on another
+	// evaluator made the same way.
+	static FireStrategyEvaluator fireEvaluator(int fieldSamples) {
+		return new FireStrategyEvaluator(MonteCarloEngine.common(), 100, 0.28, FireEngine.Kind.FRONTIER, fieldSamples);
+	}
+
+	// The same, with a fourth series for Strategy 4 (planAheadOfFire) if fieldSamples > 0.
+	public static DefaultXYDataset fireMazeSolvability (long seed, int fieldSamples) throws Exception {
 		DefaultXYDataset data = new DefaultXYDataset();
-		double[][] ignoreFireData = new double[2][50];
-		double[][] avoidFireData = new double[2][50];
-		double[][] predictFireData = new double[2][50];
-		
+		double[] flammabilities = new double[50];
 		for (int q = 1; q < 51; q++) {
-			System.out.println("q: " + 0.02*q);
-			int numIgnoreFireSolved = 0;
-			int numAvoidFireSolved = 0;
-			int numPredictFireSolved = 0;
-			for (int trial = 0; trial < 40; trial++) {
-				PathNode [][] testMap = generateMap(100, 0.28, true);
-				PathNode initialFire = findInitialFire(testMap);
-				initialFire.isOnFire = false; //temporarily set it to false so A* can find path between start and initial fire
-				PathNode fireToStart = AStarForFire(testMap[0][0], initialFire, testMap, false);
-				resetMap(testMap);
-				initialFire.isOnFire = true;
-				PathNode initialAStar = AStarForFire(testMap[0][0], testMap[testMap.length-1][testMap.length-1], testMap, true);
-				while (fireToStart == null || initialAStar == null) { //if there is no initial path between fire and start or no path from start to goal, ignore maze and create a new maze
-					System.out.println("Either the fire cannot reach start or there's no path from start to goal. Making new maze...");
-					testMap = generateMap(100, 0.1, true);
-					initialFire = findInitialFire(testMap);
-					initialFire.isOnFire = false;
-					fireToStart = AStarForFire(testMap[0][0], initialFire, testMap, false);
-					initialFire.isOnFire = true;
-					resetMap(testMap);
-					initialAStar = AStarForFire(testMap[0][0], testMap[testMap.length-1][testMap.length-1], testMap, true);
-				}
-				System.out.println("Trial: " + trial);
-				boolean ignoreFireSoln = ignoreFireSpreading(testMap, initialAStar, 0.02*q); //use AStar Manhattan distance
-				System.out.println("Ignore Fire Soln: " + ignoreFireSoln);
-				if (ignoreFireSoln == true) {
-					numIgnoreFireSolved++;
-				}
-				
-				resetMap(testMap);
-				for (int i = 0; i < testMap.length; i++) {
-					for (int j = 0; j < testMap.length; j++) {
-						if (testMap[i][j].isOnFire) {
-							testMap[i][j].isOnFire = false;
-						}
-					}
-				}
-				initialFire.isOnFire = true;
-				
-				initialAStar = AStarForFire(testMap[0][0], testMap[testMap.length-1][testMap.length-1], testMap, true);
-				
-				boolean avoidFireSoln = avoidFireSpreading(testMap, initialAStar, 0.02*q); //use AStar Manhattan distance
-				
-				System.out.println("Avoid Fire Soln: " + avoidFireSoln);
-				if (avoidFireSoln == true) {
-					numAvoidFireSolved++;
-				}
-				
-				resetMap(testMap);
-				for (int i = 0; i < testMap.length; i++) {
-					for (int j = 0; j < testMap.length; j++) {
-						if (testMap[i][j].isOnFire) {
-							testMap[i][j].isOnFire = false;
-						}
-					}
-				}
-				initialFire.isOnFire = true;
-				
-				initialAStar = AStarPredict(testMap, 0.02*q, testMap[0][0], testMap[testMap.length-1][testMap.length-1]);
-				
-				boolean predictFireSoln = predictFire(testMap, initialAStar, 0.02*q);
-				
-				System.out.println("Predict Fire Soln: " + predictFireSoln);
-				if (predictFireSoln == true) {
-					numPredictFireSolved++;
-				}
-				resetMap(testMap);
-			}
-			
-			ignoreFireData[0][q-1] = 0.02*q;
-			ignoreFireData[1][q-1] = (numIgnoreFireSolved/40.0);
-			avoidFireData[0][q-1] = 0.02*q;
-			avoidFireData[1][q-1] = (numAvoidFireSolved/40.0);
-			predictFireData[0][q-1] = 0.02*q;
-			predictFireData[1][q-1] = (numPredictFireSolved/40.0);
+			flammabilities[q-1] = 0.02*q;
+		}
+		FireStrategyEvaluator evaluator = fireEvaluator(fieldSamples);
+		long[][] numSolved = evaluator.run(flammabilities, 40, seed);
+		double[][] ignoreFireData = series(flammabilities, numSolved, FireStrategyEvaluator.IGNORE_FIRE, 40);
+		double[][] avoidFireData = series(flammabilities, numSolved, FireStrategyEvaluator.AVOID_FIRE, 40);
+		double[][] predictFireData = series(flammabilities, numSolved, FireStrategyEvaluator.PREDICT_FIRE, 40);
+		for (int q = 0; q < flammabilities.length; q++) {
+			log("q: " + flammabilities[q]);
+			log("Ignore Fire Solved: " + ignoreFireData[1][q]);
+			log("Avoid Fire Solved: " + avoidFireData[1][q]);
+			log("Predict Fire Solved: " + predictFireData[1][q]);
 		}
 		data.addSeries("Ignore Fire Strategy", ignoreFireData);
 		data.addSeries("Avoid Fire Stratgy", avoidFireData);
 		data.addSeries("Predict Fire Strategy", predictFireData);
+		if (fieldSamples > 0) {
+			double[][] planAheadData = series(flammabilities, numSolved, FireStrategyEvaluator.PLAN_AHEAD, 40);
+			for (int q = 0; q < flammabilities.length; q++) {
+				log("q: " + flammabilities[q] + " Plan Ahead Solved: " + planAheadData[1][q]);
+			}
+			data.addSeries("Plan Ahead Strategy", planAheadData);
+		}
 		
 		return data;
 	}
@@ -1528,12 +1196,10 @@ public class StaticGenAndSearch {
 		// Generates hard mazes based on an original maze. The code below uses DFS to solve
 		// each maze and the paired metric maximum fringe size to determine the difficulty
 		// of a maze.
-		maxFringeSize = 0;
 		// First, generate original maze
 		PathNode[][] regMap2 = generateMap(30, 0.2, false);
 		// Get baseline metric (fringe size for depth first search)
-		DepthFirstSearch(regMap2);
-		System.out.println("Maximum fringe size in solving the original maze: " + maxFringeSize);
+		System.out.println("Maximum fringe size in solving the original maze: " + searchDFS(regMap2).maxFringe());
 		maxFringeSize = 0;
 		resetMap(regMap2);
 		// Generate hardest maze possible from the original maze, using hill-climbing
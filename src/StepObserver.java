@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+
+// StepObserver is told about every time step of the fire strategies (ignoreFireSpreading,
+// avoidFireSpreading and predictFire), so the strategies themselves never draw or print
+// anything. Each time step is two events: the person moves, then the fire spreads. position is
+// where the person stands, and pathEnd is the last node of the path the person is following,
+// linked back through prev to the person; it is only kept up to date when drawsPath() is true,
+// since linking it costs a walk of the whole path every step.
+//
+// NO_OP is the observer of the experiments, which run the strategies thousands of times. GUI
+// draws every event in a window, logging prints one line per event and recording writes a
+// frame of an animated GIF per step.
+public interface StepObserver {
+	void personMoved(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd);
+
+	void fireSpread(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd, FireEngine fire);
+
+	// The run ended after time steps, with the person out of the maze (escaped) or not.
+	default void finished(String strategy, int time, boolean escaped) {
+	}
+
+	// Whether pathEnd has to be kept linked to the person's current path.
+	default boolean drawsPath() {
+		return false;
+	}
+
+	StepObserver NO_OP = new StepObserver() {
+		public void personMoved(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd) {
+		}
+
+		public void fireSpread(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd, FireEngine fire) {
+		}
+	};
+
+	// A window per event, drawn by printMazeSolutionGUI (nothing when headless).
+	StepObserver GUI = new StepObserver() {
+		public void personMoved(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd) {
+			StaticGenAndSearch.printMazeSolutionGUI(map, pathEnd, position, strategy);
+		}
+
+		public void fireSpread(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd, FireEngine fire) {
+			StaticGenAndSearch.printMazeSolutionGUI(map, pathEnd, position, strategy);
+		}
+
+		public boolean drawsPath() {
+			return !StaticGenAndSearch.headless;
+		}
+	};
+
+	// A frame of animation for every step, after the fire has moved, showing the person and the
+	// path they follow. The animation is left open for the caller to close.
+	static StepObserver recording(FireAnimationWriter animation) {
+		return new StepObserver() {
+			public void personMoved(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd) {
+			}
+
+			public void fireSpread(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd, FireEngine fire) {
+				try {
+					animation.addFrame(fire.maze(), MazeImageWriter.pathCells(map.length, pathEnd, position), MazeImageWriter.cellOf(map.length, position));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+
+			public boolean drawsPath() {
+				return true;
+			}
+		};
+	}
+
+	// One line per event on out: the time, the person's cell and how much is burning.
+	static StepObserver logging(PrintStream out) {
+		return new StepObserver() {
+			public void personMoved(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd) {
+				out.println(strategy + " t=" + time + " person at (" + position.row + ", " + position.col + ")");
+			}
+
+			public void fireSpread(String strategy, int time, PathNode[][] map, PathNode position, PathNode pathEnd, FireEngine fire) {
+				out.println(strategy + " t=" + time + " fire: " + fire.newFires().length + " new, " + fire.burningCount() + " burning");
+			}
+
+			public void finished(String strategy, int time, boolean escaped) {
+				out.println(strategy + " t=" + time + (escaped ? " escaped" : " did not escape"));
+			}
+		};
+	}
+}
@@ -0,0 +1,43 @@
+// TrialRecord is the outcome of one trial of an experiment: which algorithm ran, on what maze
+// (dim, density p, and for the fire strategies flammability q) drawn from which seed, and
+// how the search went. The seed is the one of the trial's own MazeRandom stream, so
+// new MazeRandom(seed) draws the same maze again. Records are immutable and written one CSV
+// line each by AsyncRecordSink.
+public final class TrialRecord {
+	public static final String CSV_HEADER = "algorithm,dim,p,q,seed,solved,nodesExpanded,maxFringe,pathLength,nanos";
+
+	public final String algorithm;
+	public final int dim;
+	public final double p;
+	public final double q; //NaN for the searches of static mazes
+	public final long seed;
+	public final boolean solved; //for a fire strategy, whether the person escaped
+	public final int nodesExpanded; //-1 where it does not apply
+	public final int maxFringe; //-1 where it does not apply
+	public final int pathLength; //cells on the path, or time steps survived for a fire strategy
+	public final long nanos;
+
+	public TrialRecord(String algorithm, int dim, double p, double q, long seed, boolean solved, int nodesExpanded, int maxFringe, int pathLength, long nanos) {
+		this.algorithm = algorithm;
+		this.dim = dim;
+		this.p = p;
+		this.q = q;
+		this.seed = seed;
+		this.solved = solved;
+		this.nodesExpanded = nodesExpanded;
+		this.maxFringe = maxFringe;
+		this.pathLength = pathLength;
+		this.nanos = nanos;
+	}
+
+	// The record of a search of a static maze.
+	public static TrialRecord of(String algorithm, int dim, double p, long seed, SearchResult result) {
+		return new TrialRecord(algorithm, dim, p, Double.NaN, seed, result.isSolved(), result.nodesExpanded(), result.maxFringe(), result.pathLength(), result.elapsedNanos());
+	}
+
+	// The record as a CSV line in the columns of CSV_HEADER, without the line break.
+	public String toCsv() {
+		return DatasetWriter.csvField(algorithm) + ',' + dim + ',' + p + ',' + q + ',' + seed + ',' + solved + ','
+				+ nodesExpanded + ',' + maxFringe + ',' + pathLength + ',' + nanos;
+	}
+}